@@ -0,0 +1,118 @@
+package io.github.wasp_stdnt.passwordmanagerv2.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Compares two JMH JSON result files (-rf json) and exits non-zero when throughput
+// drops by more than the allowed percentage (default 10) and the two scores' error
+// intervals do not overlap, so a drop inside the measurement noise is not a regression.
+// Both files must come from the same machine and JDK; no baseline is kept in the repo.
+//
+// Usage: BenchmarkComparison <baseline.json> <current.json> [max-regression-percent]
+public final class BenchmarkComparison {
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [max-regression-percent]");
+            System.exit(2);
+        }
+        double maxRegression = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Result> baseline = read(new File(args[0]));
+        Map<String, Result> current = read(new File(args[1]));
+
+        System.out.printf("%-66s %24s %24s %9s %12s %12s%n",
+                "Benchmark", "Baseline", "Current", "Change", "B/op before", "B/op after");
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result now = entry.getValue();
+            Result before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-66s %24s %24s %9s %12s %12s%n",
+                        entry.getKey(), "-", now.formatScore(), "new", "-", format(now.allocPerOp));
+                continue;
+            }
+            double change = (now.score - before.score) / before.score * 100;
+            boolean dropped = change < -maxRegression;
+            boolean regressed = dropped && now.score + now.error < before.score - before.error;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-66s %24s %24s %+8.1f%% %12s %12s%s%n",
+                    entry.getKey(), before.formatScore(), now.formatScore(), change,
+                    format(before.allocPerOp), format(now.allocPerOp),
+                    regressed ? "  REGRESSION" : dropped ? "  within error" : "");
+        }
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) {
+                System.out.printf("%-66s (not run)%n", missing);
+            }
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%, beyond their score error%n",
+                    regressions, maxRegression);
+            System.exit(1);
+        }
+    }
+
+    private static Map<String, Result> read(File file) throws IOException {
+        Map<String, Result> results = new TreeMap<>();
+        for (JsonNode run : new ObjectMapper().readTree(file)) {
+            String benchmark = run.path("benchmark").asText();
+            // keep Class.method only
+            StringBuilder key = new StringBuilder(
+                    benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+            Map<String, String> params = new LinkedHashMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = run.path("params").fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                params.put(field.getKey(), field.getValue().asText());
+            }
+            if (!params.isEmpty()) {
+                key.append(params);
+            }
+            key.append(" t=").append(run.path("threads").asInt(1));
+            JsonNode alloc = findSecondary(run.path("secondaryMetrics"));
+            JsonNode primary = run.path("primaryMetric");
+            // A single measured iteration has no error estimate; JMH writes it as NaN.
+            double error = primary.path("scoreError").asDouble(0);
+            results.put(key.toString(), new Result(
+                    primary.path("score").asDouble(),
+                    Double.isNaN(error) ? 0 : error,
+                    alloc == null ? Double.NaN : alloc.path("score").asDouble()));
+        }
+        return results;
+    }
+
+    // JMH prefixes profiler metrics with a non-ASCII marker, so match on the suffix.
+    private static JsonNode findSecondary(JsonNode secondaryMetrics) {
+        Iterator<Map.Entry<String, JsonNode>> fields = secondaryMetrics.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getKey().endsWith(ALLOC_METRIC)) {
+                return field.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static String format(double bytesPerOp) {
+        return Double.isNaN(bytesPerOp) ? "-" : String.format("%.0f", bytesPerOp);
+    }
+
+    private record Result(double score, double error, double allocPerOp) {
+        String formatScore() {
+            return String.format("%.1f +/- %.1f", score, error);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.wasp_stdnt.passwordmanagerv2.benchmark;
+
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordEncryptionBenchmark {
+    private static final String KEY = "zlOUCikArtsQvFCE/8lsDw4tY88ozFGJoczfNGZxd7k=";
+
+    @Param({"16", "64", "256"})
+    public int payloadSize;
+
+    private PasswordEncryptionService service;
+    private PreviousEngine previous;
+    private String plaintext;
+    private PasswordEncryptionService.EncryptedData encrypted;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        service = new PasswordEncryptionService(KEY);
+        previous = new PreviousEngine(KEY);
+        plaintext = "x".repeat(payloadSize);
+        encrypted = service.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public PasswordEncryptionService.EncryptedData encrypt() throws GeneralSecurityException {
+        return service.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String decrypt() throws GeneralSecurityException {
+        return service.decrypt(encrypted.ciphertext(), encrypted.iv());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public PasswordEncryptionService.EncryptedData encryptContended() throws GeneralSecurityException {
+        return service.encrypt(plaintext);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String decryptContended() throws GeneralSecurityException {
+        return service.decrypt(encrypted.ciphertext(), encrypted.iv());
+    }
+
+    // Each call on a new virtual thread, as a request is served with spring.threads.virtual.enabled;
+    // subtract virtualThreadBaseline for the crypto cost.
+    @Benchmark
+    public PasswordEncryptionService.EncryptedData encryptOnVirtualThread() throws Exception {
+        return onVirtualThread(() -> service.encrypt(plaintext));
+    }
+
+    @Benchmark
+    public String decryptOnVirtualThread() throws Exception {
+        return onVirtualThread(() -> service.decrypt(encrypted.ciphertext(), encrypted.iv()));
+    }
+
+    @Benchmark
+    public String virtualThreadBaseline() throws Exception {
+        return onVirtualThread(() -> plaintext);
+    }
+
+    @Benchmark
+    public PasswordEncryptionService.EncryptedData encryptPrevious() throws GeneralSecurityException {
+        return previous.encrypt(plaintext);
+    }
+
+    @Benchmark
+    public String decryptPrevious() throws GeneralSecurityException {
+        return previous.decrypt(encrypted.ciphertext(), encrypted.iv());
+    }
+
+    private static <T> T onVirtualThread(Callable<T> task) throws Exception {
+        FutureTask<T> future = new FutureTask<>(task);
+        Thread.ofVirtual().start(future).join();
+        return future.get();
+    }
+
+    // The original engine, kept as the baseline for comparison runs: AES/CBC over Base64 columns, a new Cipher
+    // for every call and one shared SecureRandom, where the service now borrows both from pools.
+    static final class PreviousEngine {
+        private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+        private final SecretKeySpec secretKey;
+        private final SecureRandom secureRandom = new SecureRandom();
+
+        PreviousEngine(String base64Key) {
+            this.secretKey = new SecretKeySpec(Base64.getDecoder().decode(base64Key), "AES");
+        }
+
+        PasswordEncryptionService.EncryptedData encrypt(String plaintext) throws GeneralSecurityException {
+            byte[] iv = new byte[16];
+            secureRandom.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new IvParameterSpec(iv));
+            byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+            return new PasswordEncryptionService.EncryptedData(
+                    Base64.getEncoder().encodeToString(encrypted),
+                    Base64.getEncoder().encodeToString(iv));
+        }
+
+        String decrypt(String ciphertextBase64, String ivBase64) throws GeneralSecurityException {
+            byte[] iv = Base64.getDecoder().decode(ivBase64);
+            byte[] encrypted = Base64.getDecoder().decode(ciphertextBase64);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(iv));
+            return new String(cipher.doFinal(encrypted), StandardCharsets.UTF_8);
+        }
+    }
+}
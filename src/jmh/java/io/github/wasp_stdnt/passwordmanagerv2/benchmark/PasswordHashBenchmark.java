@@ -0,0 +1,54 @@
+package io.github.wasp_stdnt.passwordmanagerv2.benchmark;
+
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordHashService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordHashBenchmark {
+    private static final String RAW_PASSWORD = "correct horse battery staple";
+
+    private PasswordHashService service;
+    private String hash;
+
+    @Setup
+    public void setUp() {
+        service = new PasswordHashService(new BCryptPasswordEncoder(), 4, 64, Duration.ofSeconds(1));
+        hash = service.hashPassword(RAW_PASSWORD);
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.destroy();
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return service.hashPassword(RAW_PASSWORD);
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return service.matches(RAW_PASSWORD, hash);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String hashPasswordContended() {
+        return service.hashPassword(RAW_PASSWORD);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean matchesContended() {
+        return service.matches(RAW_PASSWORD, hash);
+    }
+}
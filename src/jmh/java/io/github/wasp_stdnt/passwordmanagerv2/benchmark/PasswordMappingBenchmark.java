@@ -0,0 +1,138 @@
+package io.github.wasp_stdnt.passwordmanagerv2.benchmark;
+
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
+import io.github.wasp_stdnt.passwordmanagerv2.model.Password;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordMetadataView;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.DataKeyService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.ParallelCryptoExecutor;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.impl.EnvelopeMigrationJob;
+import io.github.wasp_stdnt.passwordmanagerv2.service.impl.PasswordServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Entity/projection to DTO mapping in PasswordServiceImpl, with the repository replaced by an in-memory stub.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordMappingBenchmark {
+    private static final String KEY = "zlOUCikArtsQvFCE/8lsDw4tY88ozFGJoczfNGZxd7k=";
+    private static final Long USER_ID = 1L;
+
+    @Param({"10", "50", "200"})
+    public int rows;
+
+    private PasswordServiceImpl service;
+    private ParallelCryptoExecutor cryptoExecutor;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        PasswordEncryptionService encryptionService = new PasswordEncryptionService(KEY);
+        List<Password> entities = new ArrayList<>(rows);
+        List<PasswordMetadataView> views = new ArrayList<>(rows);
+        Instant now = Instant.now();
+        for (int i = 1; i <= rows; i++) {
+            Password password = new Password();
+            password.setId((long) i);
+            password.setService("service-" + i);
+            password.setCredential("user" + i + "@example.com");
+            password.setEnvelope(encryptionService.seal("password-" + i));
+            entities.add(password);
+            views.add(new MetadataRow((long) i, password.getService(), password.getCredential(), now, now));
+        }
+        PasswordRepository repository = stubRepository(entities, views);
+        DataKeyService dataKeys = new DataKeyService(stubUserRepository(), encryptionService, 1, Duration.ofMinutes(10));
+        cryptoExecutor = new ParallelCryptoExecutor(0, 64);
+        service = new PasswordServiceImpl(repository, null, null, encryptionService, dataKeys, cryptoExecutor,
+                new EnvelopeMigrationJob(repository, null, encryptionService, dataKeys, null, false, 200), null);
+    }
+
+    @TearDown
+    public void tearDown() {
+        cryptoExecutor.destroy();
+    }
+
+    @Benchmark
+    public List<PasswordResponseDto> listPasswords() {
+        return service.listPasswords(USER_ID);
+    }
+
+    @Benchmark
+    public CursorPageDto<PasswordResponseDto> listPasswordPage() {
+        return service.listPasswordPage(USER_ID, null, rows);
+    }
+
+    @Benchmark
+    public CursorPageDto<PasswordMetadataDto> listPasswordMetadata() {
+        return service.listPasswordMetadata(USER_ID, null, rows);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<PasswordResponseDto> listPasswordsContended() {
+        return service.listPasswords(USER_ID);
+    }
+
+    private static PasswordRepository stubRepository(List<Password> entities, List<PasswordMetadataView> views) {
+        return (PasswordRepository) Proxy.newProxyInstance(PasswordRepository.class.getClassLoader(),
+                new Class<?>[]{PasswordRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findAllByUserId", "findPageByUserId" -> entities;
+                    case "findMetadataPageByUserId" -> views;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    // The entries are sealed with the master key, so the user has no data key to look up.
+    private static UserRepository stubUserRepository() {
+        return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findWrappedDataKey" -> Optional.empty();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private record MetadataRow(Long id, String service, String credential, Instant createdAt, Instant updatedAt)
+            implements PasswordMetadataView {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getService() {
+            return service;
+        }
+
+        @Override
+        public String getCredential() {
+            return credential;
+        }
+
+        @Override
+        public Instant getCreatedAt() {
+            return createdAt;
+        }
+
+        @Override
+        public Instant getUpdatedAt() {
+            return updatedAt;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.wasp_stdnt.passwordmanagerv2.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Serialization of a 1k-entry vault listing in each wire format, with and without Blackbird, and with the
+// gzip pass server.compression adds. Bytes on the wire are printed once per trial; CPU per 1k entries is
+// the inverse of the score.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PasswordSerializationBenchmark {
+    private static final int ENTRIES = 1000;
+
+    @Param({"json", "smile"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean blackbird;
+
+    private List<PasswordResponseDto> entries;
+    private ObjectWriter writer;
+    private ByteArrayOutputStream sink;
+
+    @Setup
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        entries = new ArrayList<>(ENTRIES);
+        for (int i = 1; i <= ENTRIES; i++) {
+            entries.add(new PasswordResponseDto(100_000L + i, "service-" + i, "user" + i + "@example.com",
+                    randomPassword(random)));
+        }
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (blackbird) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        if ("smile".equals(format)) {
+            builder.factory(new SmileFactory());
+        }
+        ObjectMapper mapper = builder.build();
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, PasswordResponseDto.class));
+        sink = new ByteArrayOutputStream(256 * 1024);
+
+        int raw = serialize();
+        int compressed = serializeAndGzip();
+        System.out.printf("%n%s, %d entries: %d bytes, %d bytes gzipped%n", format, ENTRIES, raw, compressed);
+    }
+
+    @Benchmark
+    public int serialize() throws IOException {
+        sink.reset();
+        writer.writeValue(sink, entries);
+        return sink.size();
+    }
+
+    @Benchmark
+    public int serializeAndGzip() throws IOException {
+        sink.reset();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(sink, 8192)) {
+            writer.writeValue(gzip, entries);
+        }
+        return sink.size();
+    }
+
+    private static String randomPassword(Random random) {
+        StringBuilder password = new StringBuilder(20);
+        for (int i = 0; i < 20; i++) {
+            password.append((char) ('!' + random.nextInt(94)));
+        }
+        return password.toString();
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.wasp_stdnt.passwordmanagerv2.cache;
+
+public interface CacheInvalidationBus {
+    // A null key means the whole cache was cleared.
+    void publish(String cacheName, String key);
+
+    void subscribe(Listener listener);
+
+    interface Listener {
+        void onInvalidation(String cacheName, String key);
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.wasp_stdnt.passwordmanagerv2.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// In-process stand-in for a single node, or for tests that wire several cache managers together.
+public class LocalCacheInvalidationBus implements CacheInvalidationBus {
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(String cacheName, String key) {
+        for (Listener listener : listeners) {
+            listener.onInvalidation(cacheName, key);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
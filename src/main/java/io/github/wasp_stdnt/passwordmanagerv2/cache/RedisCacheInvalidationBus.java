@@ -0,0 +1,54 @@
+package io.github.wasp_stdnt.passwordmanagerv2.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class RedisCacheInvalidationBus implements CacheInvalidationBus, MessageListener {
+    private static final Logger log = LoggerFactory.getLogger(RedisCacheInvalidationBus.class);
+    public static final String CHANNEL = "pm:cache-invalidation";
+    private static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate redisTemplate;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisCacheInvalidationBus(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void publish(String cacheName, String key) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, encode(cacheName, key));
+        } catch (RuntimeException e) {
+            // Other nodes fall back to their local TTL; the write itself must not fail over this.
+            log.warn("Could not publish invalidation of {}::{}", cacheName, key, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(SEPARATOR);
+        String cacheName = separator < 0 ? body : body.substring(0, separator);
+        String key = separator < 0 ? null : body.substring(separator + 1);
+        for (Listener listener : listeners) {
+            listener.onInvalidation(cacheName, key);
+        }
+    }
+
+    static String encode(String cacheName, String key) {
+        return key == null ? cacheName : cacheName + SEPARATOR + key;
+    }
+}
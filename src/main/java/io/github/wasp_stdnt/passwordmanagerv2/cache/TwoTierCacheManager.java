@@ -0,0 +1,47 @@
+package io.github.wasp_stdnt.passwordmanagerv2.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TwoTierCacheManager extends AbstractTransactionSupportingCacheManager {
+    private final long localMaxSize;
+    private final Duration localTtl;
+    private final CacheManager sharedCacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(long localMaxSize, Duration localTtl,
+                               CacheManager sharedCacheManager, CacheInvalidationBus invalidationBus) {
+        this.localMaxSize = localMaxSize;
+        this.localTtl = localTtl;
+        this.sharedCacheManager = sharedCacheManager;
+        this.invalidationBus = invalidationBus;
+        // Evictions are applied after commit, so a concurrent read cannot re-cache the pre-write state.
+        setTransactionAware(true);
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    protected List<Cache> loadCaches() {
+        return List.of();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> new TwoTierCache(cacheName, localMaxSize, localTtl,
+                sharedCacheManager == null ? null : sharedCacheManager.getCache(cacheName), invalidationBus));
+    }
+
+    private void onInvalidation(String cacheName, String key) {
+        TwoTierCache cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.evictLocal(key);
+        }
+    }
+}
@@ -1,5 +1,16 @@
 package io.github.wasp_stdnt.passwordmanagerv2.config;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.wasp_stdnt.passwordmanagerv2.cache.CacheInvalidationBus;
+import io.github.wasp_stdnt.passwordmanagerv2.cache.LocalCacheInvalidationBus;
+import io.github.wasp_stdnt.passwordmanagerv2.cache.RedisCacheInvalidationBus;
+import io.github.wasp_stdnt.passwordmanagerv2.cache.TwoTierCacheManager;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
@@ -7,25 +18,73 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.*;
 import java.time.Duration;
 
 @Configuration
 @EnableCaching
 public class CacheConfig {
+    public static final String PASSWORD_METADATA = "passwordMetadata";
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        RedisSerializationContext.SerializationPair<Object> jsonSerializer =
-                RedisSerializationContext.SerializationPair
-                        .fromSerializer(new GenericJackson2JsonRedisSerializer());
+    public CacheManager cacheManager(CacheInvalidationBus invalidationBus,
+                                     ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                                     ObjectMapper objectMapper,
+                                     @Value("${app.cache.redis.enabled:false}") boolean redisEnabled,
+                                     @Value("${app.cache.redis.ttl:PT10M}") Duration redisTtl,
+                                     @Value("${app.cache.local.max-size:10000}") long localMaxSize,
+                                     @Value("${app.cache.local.ttl:PT1M}") Duration localTtl) {
+        CacheManager shared = redisEnabled
+                ? redisCacheManager(redisConnectionFactory.getObject(), objectMapper, redisTtl)
+                : null;
+        return new TwoTierCacheManager(localMaxSize, localTtl, shared, invalidationBus);
+    }
 
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.redis.enabled", havingValue = "false", matchIfMissing = true)
+    public CacheInvalidationBus localCacheInvalidationBus() {
+        return new LocalCacheInvalidationBus();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.redis.enabled", havingValue = "true")
+    public RedisCacheInvalidationBus redisCacheInvalidationBus(StringRedisTemplate redisTemplate) {
+        return new RedisCacheInvalidationBus(redisTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.cache.redis.enabled", havingValue = "true")
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                           RedisCacheInvalidationBus invalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(invalidationBus, new ChannelTopic(RedisCacheInvalidationBus.CHANNEL));
+        return container;
+    }
+
+    private static RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+                                                       ObjectMapper objectMapper,
+                                                       Duration ttl) {
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
-                .serializeValuesWith(jsonSerializer);
+                .entryTtl(ttl)
+                .prefixCacheNameWith("pm:")
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new GenericJackson2JsonRedisSerializer()));
+
+        JavaType metadataPage = objectMapper.getTypeFactory()
+                .constructParametricType(CursorPageDto.class, PasswordMetadataDto.class);
+        RedisCacheConfiguration metadataConfig = cacheConfig.serializeValuesWith(
+                RedisSerializationContext.SerializationPair
+                        .fromSerializer(new Jackson2JsonRedisSerializer<>(objectMapper, metadataPage)));
 
-        return RedisCacheManager.builder(connectionFactory)
+        RedisCacheManager cacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfig)
+                .withCacheConfiguration(PASSWORD_METADATA, metadataConfig)
                 .build();
+        cacheManager.afterPropertiesSet();
+        return cacheManager;
     }
 }
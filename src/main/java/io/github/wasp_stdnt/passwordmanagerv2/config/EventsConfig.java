@@ -0,0 +1,38 @@
+package io.github.wasp_stdnt.passwordmanagerv2.config;
+
+import io.github.wasp_stdnt.passwordmanagerv2.events.LocalVaultEventBus;
+import io.github.wasp_stdnt.passwordmanagerv2.events.RedisVaultEventBus;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+@Configuration
+public class EventsConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.events.redis.enabled", havingValue = "false", matchIfMissing = true)
+    public VaultEventBus localVaultEventBus() {
+        return new LocalVaultEventBus();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.events.redis.enabled", havingValue = "true")
+    public RedisVaultEventBus redisVaultEventBus(StringRedisTemplate redisTemplate) {
+        return new RedisVaultEventBus(redisTemplate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.events.redis.enabled", havingValue = "true")
+    public RedisMessageListenerContainer vaultEventListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                     RedisVaultEventBus eventBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(eventBus, new ChannelTopic(RedisVaultEventBus.CHANNEL));
+        return container;
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.wasp_stdnt.passwordmanagerv2.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+// JSON stays the default; clients that send Accept: application/x-jackson-smile get the same DTOs as Smile,
+// Jackson's binary JSON, which skips quoting and escaping, writes numbers in binary and back-references
+// repeated field names.
+@Configuration
+public class JacksonConfig {
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    // Replaces reflective getter calls with generated lambdas; registered on every mapper Boot builds.
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+
+    // Takes the place of Spring MVC's default Smile converter, after JSON, so it also sees the Boot Jackson settings.
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(smileMapper(builder));
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public CodecCustomizer smileCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper mapper = smileMapper(builder);
+        // Without explicit mime types these codecs fall back to the JSON ones and would shadow JSON.
+        MimeType[] mimeTypes = {APPLICATION_SMILE, new MimeType("application", "*+x-jackson-smile")};
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(mapper, mimeTypes));
+            configurer.defaultCodecs().jackson2SmileEncoder(new SmileListEncoder(mapper, mimeTypes));
+        };
+    }
+
+    private static ObjectMapper smileMapper(Jackson2ObjectMapperBuilder builder) {
+        return builder.createXmlMapper(false).factory(new SmileFactory()).build();
+    }
+
+    // Spring frames a Flux body as a JSON array byte by byte, which is not valid Smile; encode it as one list instead.
+    private static final class SmileListEncoder extends Jackson2SmileEncoder {
+        SmileListEncoder(ObjectMapper mapper, MimeType... mimeTypes) {
+            super(mapper, mimeTypes);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> input, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (input instanceof Mono || getStreamingMediaTypeSeparator(mimeType) != null) {
+                return super.encode(input, bufferFactory, elementType, mimeType, hints);
+            }
+            ResolvableType listType = ResolvableType.forClassWithGenerics(List.class, elementType);
+            return Flux.from(input).collectList()
+                    .map(list -> encodeValue(list, bufferFactory, listType, mimeType, hints))
+                    .flux();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package io.github.wasp_stdnt.passwordmanagerv2.config;
+
+import io.github.wasp_stdnt.passwordmanagerv2.repository.ReactiveDatabase;
+import io.github.wasp_stdnt.passwordmanagerv2.security.ReactiveCurrentUserArgumentResolver;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements WebFluxConfigurer {
+
+    private final ReactiveCurrentUserArgumentResolver currentUserArgumentResolver;
+
+    public ReactiveConfig(ReactiveCurrentUserArgumentResolver currentUserArgumentResolver) {
+        this.currentUserArgumentResolver = currentUserArgumentResolver;
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        configurer.addCustomResolver(currentUserArgumentResolver);
+    }
+
+    // Static so the repositories behind the argument resolver don't need this configurer instance.
+    @Bean
+    public static ReactiveDatabase reactiveDatabase(@Value("${app.reactive.r2dbc.url}") String url,
+                                                    @Value("${app.reactive.r2dbc.username}") String username,
+                                                    @Value("${app.reactive.r2dbc.password:}") String password,
+                                                    @Value("${app.reactive.r2dbc.pool-max-size:20}") int maxSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        ConnectionPoolConfiguration pool = ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(Math.min(maxSize, 4))
+                .maxSize(maxSize)
+                .name("reactive-passwords")
+                .build();
+        return new ReactiveDatabase(new ConnectionPool(pool));
+    }
+
+    // Tomcat is on the classpath for the servlet stack and would otherwise win; Netty keeps request
+    // handling on a few event-loop threads however many connections are open.
+    @Bean
+    public static NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    // AES work is CPU-bound and must not run on Netty or R2DBC event loops.
+    @Bean(destroyMethod = "dispose")
+    public static Scheduler cryptoScheduler(@Value("${app.reactive.crypto-threads:0}") int threads) {
+        int parallelism = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newParallel("crypto-reactive", parallelism);
+    }
+}
@@ -0,0 +1,9 @@
+package io.github.wasp_stdnt.passwordmanagerv2.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,5 +1,6 @@
 package io.github.wasp_stdnt.passwordmanagerv2.config;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -7,7 +8,11 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SecurityConfig {
+    // Metrics reveal pool saturation, cache and key-rotation state; scrapers need a token carrying the
+    // "metrics" scope, e.g. a client-credentials grant for Prometheus.
+    public static final String METRICS_AUTHORITY = "SCOPE_metrics";
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
@@ -24,6 +29,7 @@ public class SecurityConfig {
                                 "/v3/api-docs.yaml",
                                 "/actuator/health"
                         ).permitAll()
+                        .requestMatchers("/actuator/prometheus").hasAuthority(METRICS_AUTHORITY)
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -1,28 +1,58 @@
 package io.github.wasp_stdnt.passwordmanagerv2.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.wasp_stdnt.passwordmanagerv2.config.JacksonConfig;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordWriteDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.VaultChangeDto;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventHub;
 import io.github.wasp_stdnt.passwordmanagerv2.security.CurrentUser;
 import io.github.wasp_stdnt.passwordmanagerv2.service.PasswordService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/passwords")
 @Validated
 @Tag(name = "Passwords", description = "Create, read, update, and delete password entries")
 public class PasswordController {
     private final PasswordService passwordService;
+    private final ObjectMapper objectMapper;
+    private final VaultEventHub vaultEvents;
 
-    public PasswordController(PasswordService passwordService) {
+    public PasswordController(PasswordService passwordService, ObjectMapper objectMapper, VaultEventHub vaultEvents) {
         this.passwordService = passwordService;
+        this.objectMapper = objectMapper;
+        this.vaultEvents = vaultEvents;
     }
 
     @Operation(
@@ -43,13 +73,179 @@ public class PasswordController {
         return ResponseEntity.ok(responseDto);
     }
 
+    @Operation(
+            summary = "Import many passwords at once",
+            description = """
+            Encrypts and stores a JSON array of entries (same shape as **Create**) in one transaction.
+            
+            Entries with a blank `service`, `credential` or `password` are skipped and reported in the response;
+            the rest are stored. The response lists one result per entry, in request order.
+            At most 5000 entries may be sent per request.
+            """)
+    @PostMapping("/bulk")
+    public ResponseEntity<PasswordImportResultDto> importPasswords(
+            @RequestBody List<PasswordWriteDto> entries,
+            @CurrentUser Long userId) {
+        PasswordImportResultDto result = passwordService.importPasswords(userId, entries);
+        return ResponseEntity.ok(result);
+    }
+
     @Operation(
             summary = "List all passwords",
-            description = "Returns an array of stored passwords for the authenticated user. Decrypted plaintext values are included.")
+            description = """
+            Returns an array of stored passwords for the authenticated user. Decrypted plaintext values are included.
+            
+            The response carries an `ETag` that changes whenever an entry is created, updated or deleted.
+            Send it back as `If-None-Match` to get an empty `304 Not Modified` while the vault is unchanged.
+            
+            Send `Accept: application/x-jackson-smile` to get the same entries as Smile (binary JSON), which is
+            about 40% smaller and cheaper to parse. This and the other listings honour `Accept-Encoding: gzip`.
+            """)
     @GetMapping
-    public ResponseEntity<List<PasswordResponseDto>> listPasswords(@CurrentUser Long userId) {
+    public ResponseEntity<List<PasswordResponseDto>> listPasswords(@CurrentUser Long userId, WebRequest request) {
+        String etag = negotiatedVaultETag(userId, request);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<PasswordResponseDto> passwords = passwordService.listPasswords(userId);
-        return ResponseEntity.ok(passwords);
+        return ResponseEntity.ok().eTag(etag).body(passwords);
+    }
+
+    @Operation(
+            summary = "Export all passwords",
+            description = """
+            Streams every stored password of the authenticated user as newline-delimited JSON
+            (one entry per line, same fields as **Get**), ordered by ID. Decrypted plaintext values are included.
+            
+            Entries are read, decrypted and written one at a time, so the export starts immediately
+            and its size is not limited by server memory.
+            """)
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPasswords(@CurrentUser Long userId) {
+        ObjectWriter writer = objectMapper.writerFor(PasswordResponseDto.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            out.flush();
+            // One generator for the whole export keeps its buffer instead of allocating one per entry.
+            try (JsonGenerator generator = writer.createGenerator(out).setRootValueSeparator(null)) {
+                passwordService.exportPasswords(userId, entry -> {
+                    try {
+                        writer.writeValue(generator, entry);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"passwords.ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(
+            summary = "List passwords page by page",
+            description = """
+            Returns up to `limit` stored passwords for the authenticated user, ordered by ID, with decrypted plaintext values.
+            
+            Pass the `nextCursor` from the previous response as `cursor` to fetch the following page;
+            a null `nextCursor` means there are no more entries. `limit` defaults to 50 and may not exceed 200.
+            Supports `If-None-Match` like **GET /api/passwords**.
+            """)
+    @GetMapping("/page")
+    public ResponseEntity<CursorPageDto<PasswordResponseDto>> listPasswordPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PasswordService.DEFAULT_PAGE_SIZE) int limit,
+            @CurrentUser Long userId,
+            WebRequest request) {
+        String etag = negotiatedVaultETag(userId, request);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        CursorPageDto<PasswordResponseDto> page = passwordService.listPasswordPage(userId, cursor, limit);
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    @Operation(
+            summary = "List password metadata",
+            description = """
+            Returns a page of entries for the authenticated user with service, credential and timestamps only.
+            No plaintext passwords are included; fetch **GET /api/passwords/{id}** to reveal one entry.
+            
+            Paging and `If-None-Match` work the same as **GET /api/passwords/page**.
+            """)
+    @GetMapping("/metadata")
+    public ResponseEntity<CursorPageDto<PasswordMetadataDto>> listPasswordMetadata(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PasswordService.DEFAULT_PAGE_SIZE) int limit,
+            @CurrentUser Long userId,
+            WebRequest request) {
+        String etag = negotiatedVaultETag(userId, request);
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        CursorPageDto<PasswordMetadataDto> page = passwordService.listPasswordMetadata(userId, cursor, limit);
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    @Operation(
+            summary = "Sync changes since the last sync",
+            description = """
+            Returns the authenticated user's entries created or updated since `since`, with decrypted plaintext
+            values, and the IDs of entries deleted since then. Work and payload grow with the number of changes,
+            not with the size of the vault.
+            
+            Omit `since` on the first sync to receive every entry. Store the returned `syncToken` and send it as
+            `since` next time; while `hasMore` is true, call again straight away. At most `limit` changes
+            (default 50, at most 200) are returned per call.
+            """)
+    @GetMapping("/changes")
+    public ResponseEntity<PasswordChangesDto> listChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "" + PasswordService.DEFAULT_PAGE_SIZE) int limit,
+            @CurrentUser Long userId) {
+        PasswordChangesDto changes = passwordService.listChanges(userId, since, limit);
+        return ResponseEntity.ok(changes);
+    }
+
+    @Operation(
+            summary = "Subscribe to vault changes",
+            description = """
+            Opens a Server-Sent Events stream that pushes a `vault-changed` event whenever an entry of the
+            authenticated user is created, updated or deleted, on any server. Use it instead of polling:
+            on each event, fetch **GET /api/passwords/changes** with your sync token.
+            
+            The first event carries the current vault version, so changes made while disconnected are
+            picked up straight away. A comment line is sent every 20 seconds to keep the connection open.
+            A client that stops reading is disconnected; reconnect and carry on as above.
+            """)
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<VaultChangeDto>> streamVaultEvents(@CurrentUser Long userId) {
+        return vaultEvents.stream(userId, Mono.fromCallable(() -> passwordService.getVaultVersion(userId)));
+    }
+
+    @Operation(
+            summary = "Search password metadata",
+            description = """
+            Returns the authenticated user's entries whose service or credential contains `q`, ignoring case,
+            with the same fields as **GET /api/passwords/metadata**. No plaintext passwords are included.
+            
+            Set `prefix=true` to match only values that start with `q`, e.g. for autocomplete.
+            `q` may be at most 100 characters; `%` and `_` are matched literally.
+            Paging works the same as **GET /api/passwords/page**.
+            """)
+    @GetMapping("/search")
+    public ResponseEntity<CursorPageDto<PasswordMetadataDto>> searchPasswordMetadata(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PasswordService.DEFAULT_PAGE_SIZE) int limit,
+            @CurrentUser Long userId) {
+        CursorPageDto<PasswordMetadataDto> page = passwordService.searchPasswordMetadata(userId, q, prefix, cursor, limit);
+        return ResponseEntity.ok(page);
     }
 
     @Operation(
@@ -88,4 +284,43 @@ public class PasswordController {
         passwordService.deletePassword(userId, id);
         return ResponseEntity.noContent().build();
     }
+
+    // JSON and Smile share the URL, so caches have to key on Accept and each format gets its own tag.
+    private String negotiatedVaultETag(Long userId, WebRequest request) {
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        return vaultETag(userId, passwordService.getVaultVersion(userId), prefersSmile(request.getHeader(HttpHeaders.ACCEPT)));
+    }
+
+    // The user id is part of the tag so a cache shared by two accounts can never answer one with the other's vault.
+    // Weak, since gzip changes the bytes but not the content; Tomcat also refuses to compress under a strong tag.
+    static String vaultETag(Long userId, long vaultVersion, boolean smile) {
+        return "W/\"" + userId + "-" + vaultVersion + (smile ? "-smile" : "") + "\"";
+    }
+
+    // Mirrors content negotiation: the highest-quality Accept entry that JSON or Smile satisfies decides,
+    // and wildcards go to JSON because its converter comes first. An Accept header that does not parse
+    // gets the JSON tag; negotiation rejects it later, and the ETag must not turn that into a 500.
+    static boolean prefersSmile(String accept) {
+        if (accept == null || !accept.contains("smile")) {
+            return false;
+        }
+        List<MediaType> accepted;
+        try {
+            accepted = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType type : accepted) {
+            if (type.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                return false;
+            }
+            if (type.isCompatibleWith(JacksonConfig.APPLICATION_SMILE)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
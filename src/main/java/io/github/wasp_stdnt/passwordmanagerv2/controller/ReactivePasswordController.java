@@ -0,0 +1,162 @@
+package io.github.wasp_stdnt.passwordmanagerv2.controller;
+
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordWriteDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.VaultChangeDto;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventHub;
+import io.github.wasp_stdnt.passwordmanagerv2.security.CurrentUser;
+import io.github.wasp_stdnt.passwordmanagerv2.service.PasswordService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.ReactivePasswordService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Same routes and payloads as PasswordController, served when spring.main.web-application-type=reactive.
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequestMapping("/api/passwords")
+@Validated
+@Tag(name = "Passwords", description = "Create, read, update, and delete password entries")
+public class ReactivePasswordController {
+    private final ReactivePasswordService passwordService;
+    private final VaultEventHub vaultEvents;
+
+    public ReactivePasswordController(ReactivePasswordService passwordService, VaultEventHub vaultEvents) {
+        this.passwordService = passwordService;
+        this.vaultEvents = vaultEvents;
+    }
+
+    @Operation(summary = "Create a new password")
+    @PostMapping
+    public Mono<ResponseEntity<PasswordResponseDto>> createPassword(
+            @Valid @RequestBody PasswordWriteDto createDto,
+            @CurrentUser Long userId) {
+        return passwordService.createPassword(userId, createDto).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Import many passwords at once")
+    @PostMapping("/bulk")
+    public Mono<ResponseEntity<PasswordImportResultDto>> importPasswords(
+            @RequestBody List<PasswordWriteDto> entries,
+            @CurrentUser Long userId) {
+        return passwordService.importPasswords(userId, entries).map(ResponseEntity::ok);
+    }
+
+    // Bodies below are subscribed only after WebFlux has checked If-None-Match against the ETag.
+    @Operation(summary = "List all passwords")
+    @GetMapping
+    public Mono<ResponseEntity<Flux<PasswordResponseDto>>> listPasswords(
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @CurrentUser Long userId) {
+        return passwordService.getVaultVersion(userId)
+                .map(version -> ResponseEntity.ok()
+                        .eTag(PasswordController.vaultETag(userId, version, PasswordController.prefersSmile(accept)))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(passwordService.listPasswords(userId)));
+    }
+
+    @Operation(summary = "Export all passwords")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<PasswordResponseDto>> exportPasswords(@CurrentUser Long userId) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"passwords.ndjson\"")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(passwordService.exportPasswords(userId));
+    }
+
+    @Operation(summary = "List passwords page by page")
+    @GetMapping("/page")
+    public Mono<ResponseEntity<Mono<CursorPageDto<PasswordResponseDto>>>> listPasswordPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PasswordService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @CurrentUser Long userId) {
+        return passwordService.getVaultVersion(userId)
+                .map(version -> ResponseEntity.ok()
+                        .eTag(PasswordController.vaultETag(userId, version, PasswordController.prefersSmile(accept)))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(passwordService.listPasswordPage(userId, cursor, limit)));
+    }
+
+    @Operation(summary = "List password metadata")
+    @GetMapping("/metadata")
+    public Mono<ResponseEntity<Mono<CursorPageDto<PasswordMetadataDto>>>> listPasswordMetadata(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PasswordService.DEFAULT_PAGE_SIZE) int limit,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @CurrentUser Long userId) {
+        return passwordService.getVaultVersion(userId)
+                .map(version -> ResponseEntity.ok()
+                        .eTag(PasswordController.vaultETag(userId, version, PasswordController.prefersSmile(accept)))
+                        .varyBy(HttpHeaders.ACCEPT)
+                        .body(passwordService.listPasswordMetadata(userId, cursor, limit)));
+    }
+
+    @Operation(summary = "Sync changes since the last sync")
+    @GetMapping("/changes")
+    public Mono<ResponseEntity<PasswordChangesDto>> listChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "" + PasswordService.DEFAULT_PAGE_SIZE) int limit,
+            @CurrentUser Long userId) {
+        return passwordService.listChanges(userId, since, limit).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Subscribe to vault changes")
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<VaultChangeDto>> streamVaultEvents(@CurrentUser Long userId) {
+        return vaultEvents.stream(userId, passwordService.getVaultVersion(userId));
+    }
+
+    @Operation(summary = "Search password metadata by service or credential")
+    @GetMapping("/search")
+    public Mono<ResponseEntity<CursorPageDto<PasswordMetadataDto>>> searchPasswordMetadata(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "false") boolean prefix,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PasswordService.DEFAULT_PAGE_SIZE) int limit,
+            @CurrentUser Long userId) {
+        return passwordService.searchPasswordMetadata(userId, q, prefix, cursor, limit).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Get a single password")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<PasswordResponseDto>> getPassword(
+            @PathVariable Long id,
+            @CurrentUser Long userId) {
+        return passwordService.getPassword(userId, id).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Update an existing password")
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<PasswordResponseDto>> updatePassword(
+            @PathVariable Long id,
+            @Valid @RequestBody PasswordWriteDto updateDto,
+            @CurrentUser Long userId) {
+        return passwordService.updatePassword(userId, id, updateDto).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Delete a password")
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deletePassword(
+            @PathVariable Long id,
+            @CurrentUser Long userId) {
+        return passwordService.deletePassword(userId, id)
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()));
+    }
+}
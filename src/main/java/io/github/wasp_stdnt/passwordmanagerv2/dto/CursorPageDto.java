@@ -0,0 +1,28 @@
+package io.github.wasp_stdnt.passwordmanagerv2.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(
+        name = "CursorPageDto",
+        description = "One page of results plus an opaque token for fetching the next page"
+)
+public class CursorPageDto<T> {
+    @Schema(description = "Entries on this page, ordered by ID")
+    private List<T> items;
+
+    @Schema(
+            description = "Opaque continuation token; pass it as `cursor` to get the next page. Null on the last page.",
+            example = "djE6NDI"
+    )
+    private String nextCursor;
+}
@@ -0,0 +1,34 @@
+package io.github.wasp_stdnt.passwordmanagerv2.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(
+        name = "PasswordChangesDto",
+        description = "Entries created, updated or deleted since a sync token, plus the token to sync from next time"
+)
+public class PasswordChangesDto {
+    @Schema(description = "Entries created or updated since `since`, with decrypted passwords, in the order they changed")
+    private List<PasswordResponseDto> upserts;
+
+    @Schema(description = "IDs of entries deleted since `since`", example = "[7, 12]")
+    private List<Long> deletedIds;
+
+    @Schema(
+            description = "Opaque sync token; store it and pass it as `since` on the next sync",
+            example = "czE6NDI6OTIyMzM3MjAzNjg1NDc3NTgwNzo0Mg"
+    )
+    private String syncToken;
+
+    @Schema(description = "True if more changes are waiting; call again straight away with `syncToken`")
+    private boolean hasMore;
+}
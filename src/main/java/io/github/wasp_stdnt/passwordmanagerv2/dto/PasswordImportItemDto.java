@@ -0,0 +1,26 @@
+package io.github.wasp_stdnt.passwordmanagerv2.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(
+        name = "PasswordImportItemDto",
+        description = "Result for a single entry of a bulk import"
+)
+public class PasswordImportItemDto {
+    @Schema(description = "Position of the entry in the request array", example = "0")
+    private int index;
+
+    @Schema(description = "ID of the stored entry; null if it was rejected", example = "42")
+    private Long id;
+
+    @Schema(description = "Why the entry was rejected; null if it was stored", example = "service must not be blank")
+    private String error;
+}
@@ -0,0 +1,28 @@
+package io.github.wasp_stdnt.passwordmanagerv2.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(
+        name = "PasswordImportResultDto",
+        description = "Outcome of a bulk import, with one result per submitted entry"
+)
+public class PasswordImportResultDto {
+    @Schema(description = "Number of entries that were stored", example = "998")
+    private int imported;
+
+    @Schema(description = "Number of entries that were rejected", example = "2")
+    private int rejected;
+
+    @Schema(description = "Per-entry results, in the same order as the request")
+    private List<PasswordImportItemDto> items;
+}
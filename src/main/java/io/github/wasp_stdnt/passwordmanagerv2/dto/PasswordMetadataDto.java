@@ -0,0 +1,49 @@
+package io.github.wasp_stdnt.passwordmanagerv2.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(
+        name = "PasswordMetadataDto",
+        description = "A password entry without its secret; fetch the entry by ID to get the plaintext password"
+)
+public class PasswordMetadataDto {
+    @Schema(
+            description = "Unique ID of the password entry",
+            example = "9"
+    )
+    private Long id;
+
+    @Schema(
+            description = "Name of the service (e.g., Gmail)",
+            example = "Gmail"
+    )
+    private String service;
+
+    @Schema(
+            description = "Username/email associated with that service",
+            example = "alice@gmail.com"
+    )
+    private String credential;
+
+    @Schema(
+            description = "When the entry was created",
+            example = "2025-06-01T12:00:00Z"
+    )
+    private Instant createdAt;
+
+    @Schema(
+            description = "When the entry was last modified",
+            example = "2025-06-02T08:30:00Z"
+    )
+    private Instant updatedAt;
+}
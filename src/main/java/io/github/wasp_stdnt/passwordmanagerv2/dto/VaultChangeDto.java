@@ -0,0 +1,23 @@
+package io.github.wasp_stdnt.passwordmanagerv2.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(
+        name = "VaultChangeDto",
+        description = "Pushed when the vault changes; fetch GET /api/passwords/changes with your sync token to get the change"
+)
+public class VaultChangeDto {
+    @Schema(
+            description = "Vault version after the change; the same number the vault listings carry in their ETag",
+            example = "42"
+    )
+    private long vaultVersion;
+}
@@ -0,0 +1,21 @@
+package io.github.wasp_stdnt.passwordmanagerv2.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// In-process stand-in for a single node.
+public class LocalVaultEventBus implements VaultEventBus {
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Long userId, long vaultVersion) {
+        for (Listener listener : listeners) {
+            listener.onVaultChanged(userId, vaultVersion);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
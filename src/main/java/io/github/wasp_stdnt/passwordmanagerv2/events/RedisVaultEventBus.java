@@ -0,0 +1,78 @@
+package io.github.wasp_stdnt.passwordmanagerv2.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// The publishing node's listeners run synchronously, as on LocalVaultEventBus, so they never wait on (or miss)
+// the round trip through Redis; the channel only carries the event to the other nodes, and each message names
+// the node that sent it so that node can ignore its own echo.
+public class RedisVaultEventBus implements VaultEventBus, MessageListener {
+    private static final Logger log = LoggerFactory.getLogger(RedisVaultEventBus.class);
+    public static final String CHANNEL = "pm:vault-events";
+    private static final char SEPARATOR = '|';
+
+    private final StringRedisTemplate redisTemplate;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisVaultEventBus(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public void publish(Long userId, long vaultVersion) {
+        deliver(userId, vaultVersion);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, encode(nodeId, userId, vaultVersion));
+        } catch (RuntimeException e) {
+            // Other nodes catch up on their next sync; the write itself has already committed.
+            log.warn("Could not publish change of vault {} to version {}", userId, vaultVersion, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int first = body.indexOf(SEPARATOR);
+        int second = body.indexOf(SEPARATOR, first + 1);
+        Long userId;
+        long vaultVersion;
+        try {
+            userId = Long.valueOf(body.substring(0, first));
+            vaultVersion = Long.parseLong(body.substring(first + 1, second));
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed vault event '{}'", body);
+            return;
+        }
+        if (!nodeId.equals(body.substring(second + 1))) {
+            deliver(userId, vaultVersion);
+        }
+    }
+
+    String nodeId() {
+        return nodeId;
+    }
+
+    private void deliver(Long userId, long vaultVersion) {
+        for (Listener listener : listeners) {
+            listener.onVaultChanged(userId, vaultVersion);
+        }
+    }
+
+    static String encode(String nodeId, Long userId, long vaultVersion) {
+        return userId + String.valueOf(SEPARATOR) + vaultVersion + SEPARATOR + nodeId;
+    }
+}
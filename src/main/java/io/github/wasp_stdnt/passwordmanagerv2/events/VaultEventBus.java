@@ -0,0 +1,12 @@
+package io.github.wasp_stdnt.passwordmanagerv2.events;
+
+// Fans "this vault changed" out to every node, each of which pushes it to its own open subscriptions.
+public interface VaultEventBus {
+    void publish(Long userId, long vaultVersion);
+
+    void subscribe(Listener listener);
+
+    interface Listener {
+        void onVaultChanged(Long userId, long vaultVersion);
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.wasp_stdnt.passwordmanagerv2.events;
+
+import io.github.wasp_stdnt.passwordmanagerv2.dto.VaultChangeDto;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// This node's open vault subscriptions, fed by the VaultEventBus. Reactor types serve both web stacks:
+// Spring MVC writes a Flux of ServerSentEvent through an async request, so no thread waits per client.
+@Component
+public class VaultEventHub implements MeterBinder {
+    public static final String EVENT_NAME = "vault-changed";
+
+    private final ConcurrentMap<Long, Set<Sinks.Many<Long>>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger open = new AtomicInteger();
+    private final AtomicLong overflows = new AtomicLong();
+    private final int bufferSize;
+    private final Duration heartbeat;
+
+    public VaultEventHub(VaultEventBus eventBus,
+                         @Value("${app.events.buffer-size:16}") int bufferSize,
+                         @Value("${app.events.heartbeat:PT20S}") Duration heartbeat) {
+        this.bufferSize = bufferSize;
+        this.heartbeat = heartbeat;
+        eventBus.subscribe(this::deliver);
+    }
+
+    // One event with the current version, so a client that missed changes while disconnected syncs
+    // straight away, then one per change and a comment line every heartbeat. The comments keep proxies
+    // from closing an idle stream and surface dead clients, whose subscriptions are then dropped.
+    public Flux<ServerSentEvent<VaultChangeDto>> stream(Long userId, Mono<Long> currentVersion) {
+        Flux<ServerSentEvent<VaultChangeDto>> heartbeats = Flux.interval(heartbeat, heartbeat)
+                .map(tick -> ServerSentEvent.<VaultChangeDto>builder().comment("heartbeat").build());
+        // subscribe() registers before currentVersion is read, so no change can fall in between.
+        return Flux.merge(subscribe(userId), currentVersion)
+                .map(VaultEventHub::event)
+                .publish(changes -> Flux.merge(changes, heartbeats.takeUntilOther(changes.ignoreElements())));
+    }
+
+    // Each subscription buffers at most buffer-size versions. One that falls further behind is completed
+    // instead of growing; the client reconnects and its first event makes it sync.
+    public Flux<Long> subscribe(Long userId) {
+        return Flux.defer(() -> {
+            Sinks.Many<Long> sink = Sinks.many().unicast().onBackpressureBuffer(new ArrayBlockingQueue<>(bufferSize));
+            subscriptions.compute(userId, (id, sinks) -> {
+                Set<Sinks.Many<Long>> updated = sinks != null ? sinks : ConcurrentHashMap.newKeySet();
+                updated.add(sink);
+                return updated;
+            });
+            open.incrementAndGet();
+            return sink.asFlux().doFinally(signal -> unsubscribe(userId, sink));
+        });
+    }
+
+    void deliver(Long userId, long vaultVersion) {
+        Set<Sinks.Many<Long>> sinks = subscriptions.get(userId);
+        if (sinks == null) {
+            return;
+        }
+        for (Sinks.Many<Long> sink : sinks) {
+            // Commits on different threads may publish at once; a sink takes one emitter at a time.
+            synchronized (sink) {
+                if (sink.tryEmitNext(vaultVersion) == Sinks.EmitResult.FAIL_OVERFLOW) {
+                    overflows.incrementAndGet();
+                    sink.tryEmitComplete();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("vault.events.subscriptions", open, AtomicInteger::get)
+                .description("Open vault change subscriptions on this node")
+                .register(registry);
+        FunctionCounter.builder("vault.events.overflows", overflows, AtomicLong::get)
+                .description("Subscriptions closed because the client fell too far behind")
+                .register(registry);
+    }
+
+    private void unsubscribe(Long userId, Sinks.Many<Long> sink) {
+        subscriptions.computeIfPresent(userId, (id, sinks) -> {
+            sinks.remove(sink);
+            return sinks.isEmpty() ? null : sinks;
+        });
+        open.decrementAndGet();
+    }
+
+    private static ServerSentEvent<VaultChangeDto> event(long vaultVersion) {
+        return ServerSentEvent.builder(new VaultChangeDto(vaultVersion))
+                .id(Long.toString(vaultVersion))
+                .event(EVENT_NAME)
+                .build();
+    }
+}
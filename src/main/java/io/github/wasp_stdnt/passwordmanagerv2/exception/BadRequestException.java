@@ -0,0 +1,11 @@
+package io.github.wasp_stdnt.passwordmanagerv2.exception;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,12 +2,15 @@ package io.github.wasp_stdnt.passwordmanagerv2.exception;
 
 import io.github.wasp_stdnt.passwordmanagerv2.dto.ErrorResponse;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.ValidationErrorResponse;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import org.springframework.web.context.request.WebRequest;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,17 +30,40 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
 
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<ErrorResponse> handleBadRequest(BadRequestException ex) {
+        ErrorResponse body = new ErrorResponse("BAD_REQUEST", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
     @ExceptionHandler(CryptoException.class)
     public ResponseEntity<ErrorResponse> handleCrypto(CryptoException ex) {
         ErrorResponse body = new ErrorResponse("ENCRYPTION_ERROR", ex.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
     }
 
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<ErrorResponse> handleServiceUnavailable(ServiceUnavailableException ex) {
+        ErrorResponse body = new ErrorResponse("SERVICE_UNAVAILABLE", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(body);
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     protected ResponseEntity<Object> handleValidation(
             MethodArgumentNotValidException ex, WebRequest request) {
+        return validationFailed(ex.getBindingResult());
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    protected ResponseEntity<Object> handleReactiveValidation(WebExchangeBindException ex) {
+        return validationFailed(ex.getBindingResult());
+    }
+
+    private static ResponseEntity<Object> validationFailed(BindingResult bindingResult) {
         Map<String, String> errors = new HashMap<>();
-        for (FieldError fieldError : ex.getBindingResult().getFieldErrors()) {
+        for (FieldError fieldError : bindingResult.getFieldErrors()) {
             errors.put(fieldError.getField(), fieldError.getDefaultMessage());
         }
         ValidationErrorResponse body = new ValidationErrorResponse("VALIDATION_FAILED", errors);
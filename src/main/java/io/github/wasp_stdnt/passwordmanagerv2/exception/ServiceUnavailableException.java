@@ -0,0 +1,16 @@
+package io.github.wasp_stdnt.passwordmanagerv2.exception;
+
+import java.time.Duration;
+
+public class ServiceUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ServiceUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.wasp_stdnt.passwordmanagerv2.health;
+
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+
+// Round-trips a fixed value through the configured key so a bad key or broken provider shows up before user data does.
+@Component
+public class CryptoSelfTestHealthIndicator implements HealthIndicator {
+    private static final String PROBE = "crypto-self-test";
+
+    private final PasswordEncryptionService encryptionService;
+
+    public CryptoSelfTestHealthIndicator(PasswordEncryptionService encryptionService) {
+        this.encryptionService = encryptionService;
+    }
+
+    @Override
+    public Health health() {
+        long start = System.nanoTime();
+        try {
+            String roundTrip = encryptionService.open(encryptionService.seal(PROBE));
+            if (!PROBE.equals(roundTrip)) {
+                return Health.down().withDetail("error", "Decrypted value does not match").build();
+            }
+        } catch (GeneralSecurityException | RuntimeException e) {
+            return Health.down(e).build();
+        }
+        return Health.up()
+                .withDetail("latencyMs", (System.nanoTime() - start) / 1_000_000.0)
+                .build();
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.wasp_stdnt.passwordmanagerv2.health;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component
+public class DatabaseLatencyHealthIndicator implements HealthIndicator {
+    public static final Status DEGRADED = new Status("DEGRADED", "Database round trip is slower than expected");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration threshold;
+
+    public DatabaseLatencyHealthIndicator(JdbcTemplate jdbcTemplate,
+                                          @Value("${app.health.db-latency-threshold:PT0.25S}") Duration threshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public Health health() {
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.queryForObject("select 1", Integer.class);
+        } catch (RuntimeException e) {
+            return Health.down(e).build();
+        }
+        Duration latency = Duration.ofNanos(System.nanoTime() - start);
+        Health.Builder builder = latency.compareTo(threshold) > 0 ? Health.status(DEGRADED) : Health.up();
+        return builder
+                .withDetail("latencyMs", latency.toNanos() / 1_000_000.0)
+                .withDetail("thresholdMs", threshold.toMillis())
+                .build();
+    }
+}
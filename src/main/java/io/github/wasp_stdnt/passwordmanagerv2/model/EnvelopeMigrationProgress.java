@@ -0,0 +1,22 @@
+package io.github.wasp_stdnt.passwordmanagerv2.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// One row per envelope migration scan; lastId is the keyset cursor a restarted job resumes from.
+@Entity
+@Table(name = "envelope_migration_progress")
+@Data
+public class EnvelopeMigrationProgress {
+    @Id
+    @Column(length = 32)
+    private String scan;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
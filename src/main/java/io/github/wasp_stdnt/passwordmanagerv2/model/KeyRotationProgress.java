@@ -0,0 +1,28 @@
+package io.github.wasp_stdnt.passwordmanagerv2.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// One row per rotation target; lastId is the keyset cursor a restarted job resumes from.
+@Entity
+@Table(name = "key_rotation_progress")
+@Data
+public class KeyRotationProgress {
+    @Id
+    @Column(name = "key_id")
+    private Integer keyId;
+
+    @Column(name = "last_id", nullable = false)
+    private Long lastId;
+
+    @Column(nullable = false)
+    private Long rotated;
+
+    @Column(name = "started_at")
+    private Instant startedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+}
@@ -2,29 +2,48 @@ package io.github.wasp_stdnt.passwordmanagerv2.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.Instant;
 
 @Entity
 @Table(name = "passwords")
 @Data
 public class Password {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "passwords_seq")
+    @SequenceGenerator(name = "passwords_seq", sequenceName = "passwords_seq", allocationSize = 50)
     private Long id;
 
     @Column(columnDefinition = "TEXT")
     private String service;
 
-    @Lob
+    // Plain TEXT, not @Lob: search runs lower(credential) in JPQL, which Hibernate rejects for CLOB mappings.
     @Column(columnDefinition = "TEXT", nullable = false)
     private String credential;
 
-    @Lob
-    @Column(columnDefinition = "TEXT", nullable = false)
+    @Column(columnDefinition = "bytea")
+    private byte[] envelope;
+
+    @Column(columnDefinition = "TEXT")
     private String ciphertext;
 
-    @Column(columnDefinition = "TEXT", nullable = false)
+    @Column(columnDefinition = "TEXT")
     private String iv;
 
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+
+    // The owner's vault version when this entry was last created or updated.
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -0,0 +1,25 @@
+package io.github.wasp_stdnt.passwordmanagerv2.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// Left behind by a delete so clients syncing with GET /api/passwords/changes learn about it.
+@Entity
+@Table(name = "password_tombstones")
+@Data
+public class PasswordTombstone {
+    @Id
+    @Column(name = "password_id")
+    private Long passwordId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "change_version", nullable = false)
+    private long changeVersion;
+
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+}
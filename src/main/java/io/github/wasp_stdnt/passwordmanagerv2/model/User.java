@@ -21,6 +21,12 @@ public class User {
     @Column(name = "password_hash", nullable = false)
     private String passwordHash;
 
+    @Column(name = "wrapped_dek", columnDefinition = "bytea")
+    private byte[] wrappedDataKey;
+
+    @Column(name = "vault_version", nullable = false)
+    private long vaultVersion;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Password> passwords;
 }
@@ -0,0 +1,17 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import io.github.wasp_stdnt.passwordmanagerv2.model.EnvelopeMigrationProgress;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface EnvelopeMigrationProgressRepository extends JpaRepository<EnvelopeMigrationProgress, String> {
+    // Held for the whole chunk so only one node walks a scan at a time.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select e from EnvelopeMigrationProgress e where e.scan = :scan")
+    Optional<EnvelopeMigrationProgress> lockByScan(@Param("scan") String scan);
+}
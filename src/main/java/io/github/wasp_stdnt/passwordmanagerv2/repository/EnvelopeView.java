@@ -0,0 +1,7 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+public interface EnvelopeView {
+    Long getId();
+    Long getUserId();
+    byte[] getEnvelope();
+}
@@ -0,0 +1,17 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import io.github.wasp_stdnt.passwordmanagerv2.model.KeyRotationProgress;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface KeyRotationProgressRepository extends JpaRepository<KeyRotationProgress, Integer> {
+    // Held for the whole chunk so only one node rotates at a time.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select k from KeyRotationProgress k where k.keyId = :keyId")
+    Optional<KeyRotationProgress> lockByKeyId(@Param("keyId") Integer keyId);
+}
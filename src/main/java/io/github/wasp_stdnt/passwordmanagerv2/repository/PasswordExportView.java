@@ -0,0 +1,10 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+public interface PasswordExportView {
+    Long getId();
+    String getService();
+    String getCredential();
+    byte[] getEnvelope();
+    String getCiphertext();
+    String getIv();
+}
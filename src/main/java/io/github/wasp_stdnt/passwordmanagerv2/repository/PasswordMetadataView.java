@@ -0,0 +1,11 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import java.time.Instant;
+
+public interface PasswordMetadataView {
+    Long getId();
+    String getService();
+    String getCredential();
+    Instant getCreatedAt();
+    Instant getUpdatedAt();
+}
@@ -1,14 +1,134 @@
 package io.github.wasp_stdnt.passwordmanagerv2.repository;
 
 import io.github.wasp_stdnt.passwordmanagerv2.model.Password;
-import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PasswordRepository extends JpaRepository<Password, Long> {
-    List<Password> findByUser(User user);
-    Optional<Password> findByIdAndUser(Long id, User user);
-    void deleteByIdAndUser(Long id, User user);
-    boolean existsByIdAndUser(Long id, User user);
-}
\ No newline at end of file
+    int EXPORT_FETCH_SIZE = 200;
+
+    @Query("select p from Password p where p.user.id = :userId order by p.id")
+    List<Password> findAllByUserId(@Param("userId") Long userId);
+
+    @Query("select p from Password p where p.id = :id and p.user.id = :userId")
+    Optional<Password> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    @Query("select p from Password p where p.user.id = :userId and p.id > :afterId order by p.id")
+    List<Password> findPageByUserId(@Param("userId") Long userId, @Param("afterId") Long afterId, Limit limit);
+
+    // Keyset over (changeVersion, id), bounded by the vault version the caller read first so rows from
+    // writes still in flight wait for the next sync; see idx_passwords_user_change.
+    @Query("""
+            select p from Password p
+            where p.user.id = :userId and p.changeVersion <= :upTo
+              and (p.changeVersion > :afterVersion
+                   or (p.changeVersion = :afterVersion and p.id > :afterId))
+            order by p.changeVersion, p.id""")
+    List<Password> findChangedPage(@Param("userId") Long userId,
+                                   @Param("afterVersion") long afterVersion,
+                                   @Param("afterId") long afterId,
+                                   @Param("upTo") long upTo,
+                                   Limit limit);
+
+    @Query("""
+            select p.id as id, p.service as service, p.credential as credential,
+                   p.createdAt as createdAt, p.updatedAt as updatedAt
+            from Password p
+            where p.user.id = :userId and p.id > :afterId
+            order by p.id""")
+    List<PasswordMetadataView> findMetadataPageByUserId(@Param("userId") Long userId,
+                                                        @Param("afterId") Long afterId,
+                                                        Limit limit);
+
+    // pattern is already lower-cased and escaped; see db/migration/postgresql/V4 for the matching index
+    @Query("""
+            select p.id as id, p.service as service, p.credential as credential,
+                   p.createdAt as createdAt, p.updatedAt as updatedAt
+            from Password p
+            where p.user.id = :userId and p.id > :afterId
+              and (lower(p.service) like :pattern escape '\\'
+                   or lower(p.credential) like :pattern escape '\\')
+            order by p.id""")
+    List<PasswordMetadataView> searchMetadataPageByUserId(@Param("userId") Long userId,
+                                                          @Param("pattern") String pattern,
+                                                          @Param("afterId") Long afterId,
+                                                          Limit limit);
+
+    @Query("""
+            select p.id as id, p.service as service, p.credential as credential,
+                   p.envelope as envelope, p.ciphertext as ciphertext, p.iv as iv
+            from Password p
+            where p.user.id = :userId
+            order by p.id""")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<PasswordExportView> streamExportByUserId(@Param("userId") Long userId);
+
+    @Query("""
+            select p.id as id, p.ciphertext as ciphertext, p.iv as iv
+            from Password p
+            where p.envelope is null and p.id > :afterId
+            order by p.id""")
+    List<LegacyCiphertextView> findLegacyPage(@Param("afterId") Long afterId, Limit limit);
+
+    @Query("""
+            select p.id as id, p.ciphertext as ciphertext, p.iv as iv
+            from Password p
+            where p.envelope is null and p.id in :ids""")
+    List<LegacyCiphertextView> findLegacyByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Password p set p.envelope = :envelope, p.ciphertext = null, p.iv = null "
+            + "where p.id = :id and p.envelope is null")
+    int migrateToEnvelope(@Param("id") Long id, @Param("envelope") byte[] envelope);
+
+    // Rows still sealed directly by a master key; version is the first envelope byte. Native because
+    // JPQL has no byte-string functions.
+    @Query(value = """
+            select p.id as id, p.user_id as userId, p.envelope as envelope
+            from passwords p
+            where p.envelope is not null and p.id > :afterId
+              and substring(p.envelope from 1 for 1) <> :dataKeyVersion
+            order by p.id
+            limit :limit""", nativeQuery = true)
+    List<EnvelopeView> findMasterSealedPage(@Param("afterId") Long afterId,
+                                            @Param("dataKeyVersion") byte[] dataKeyVersion,
+                                            @Param("limit") int limit);
+
+    // Compare-and-set: a concurrent user update has already re-sealed the row with the data key.
+    @Modifying
+    @Query("update Password p set p.envelope = :envelope where p.id = :id and p.envelope = :previous")
+    int replaceEnvelope(@Param("id") Long id, @Param("previous") byte[] previous, @Param("envelope") byte[] envelope);
+
+    @Modifying
+    @Query("""
+            update Password p
+            set p.service = :service, p.credential = :credential, p.envelope = :envelope,
+                p.ciphertext = null, p.iv = null, p.updatedAt = :updatedAt, p.changeVersion = :changeVersion
+            where p.id = :id and p.user.id = :userId""")
+    int updateByIdAndUserId(@Param("id") Long id,
+                            @Param("userId") Long userId,
+                            @Param("service") String service,
+                            @Param("credential") String credential,
+                            @Param("envelope") byte[] envelope,
+                            @Param("updatedAt") Instant updatedAt,
+                            @Param("changeVersion") long changeVersion);
+
+    @Modifying
+    @Query("delete from Password p where p.id = :id and p.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+}
@@ -0,0 +1,18 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class PasswordRow implements PasswordExportView, PasswordMetadataView {
+    Long id;
+    String service;
+    String credential;
+    byte[] envelope;
+    String ciphertext;
+    String iv;
+    Instant createdAt;
+    Instant updatedAt;
+    long changeVersion;
+}
@@ -0,0 +1,36 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import io.github.wasp_stdnt.passwordmanagerv2.model.PasswordTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface PasswordTombstoneRepository extends JpaRepository<PasswordTombstone, Long> {
+    // Same keyset as PasswordRepository.findChangedPage, served by idx_password_tombstones_user_change.
+    @Query("""
+            select t from PasswordTombstone t
+            where t.userId = :userId and t.changeVersion <= :upTo
+              and (t.changeVersion > :afterVersion
+                   or (t.changeVersion = :afterVersion and t.passwordId > :afterId))
+            order by t.changeVersion, t.passwordId""")
+    List<PasswordTombstone> findChangedPage(@Param("userId") Long userId,
+                                            @Param("afterVersion") long afterVersion,
+                                            @Param("afterId") long afterId,
+                                            @Param("upTo") long upTo,
+                                            Limit limit);
+
+    // A plain insert; save() would select by the assigned id first.
+    @Modifying
+    @Query(value = """
+            insert into password_tombstones (password_id, user_id, change_version, deleted_at)
+            values (:passwordId, :userId, :changeVersion, :deletedAt)""", nativeQuery = true)
+    int insert(@Param("passwordId") Long passwordId,
+               @Param("userId") Long userId,
+               @Param("changeVersion") long changeVersion,
+               @Param("deletedAt") Instant deletedAt);
+}
@@ -0,0 +1,54 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.PoolMetrics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.util.function.ToDoubleFunction;
+
+// Owns the R2DBC pool without exposing it as a ConnectionFactory bean, which would make Boot
+// drop the JDBC DataSource that JPA and the migration job still need.
+public class ReactiveDatabase implements DisposableBean, MeterBinder {
+    private final ConnectionPool pool;
+    private final DatabaseClient client;
+    private final TransactionalOperator transactionalOperator;
+
+    public ReactiveDatabase(ConnectionPool pool) {
+        this.pool = pool;
+        this.client = DatabaseClient.create(pool);
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(pool));
+    }
+
+    public DatabaseClient client() {
+        return client;
+    }
+
+    public TransactionalOperator transactionalOperator() {
+        return transactionalOperator;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        gauge(registry, "r2dbc.pool.acquired", "Connections in use", PoolMetrics::acquiredSize);
+        gauge(registry, "r2dbc.pool.idle", "Idle connections", PoolMetrics::idleSize);
+        gauge(registry, "r2dbc.pool.pending", "Subscribers waiting for a connection", PoolMetrics::pendingAcquireSize);
+        gauge(registry, "r2dbc.pool.max", "Maximum pool size", PoolMetrics::getMaxAllocatedSize);
+    }
+
+    @Override
+    public void destroy() {
+        pool.dispose();
+    }
+
+    private void gauge(MeterRegistry registry, String name, String description, ToDoubleFunction<PoolMetrics> value) {
+        Gauge.builder(name, pool, p -> p.getMetrics().map(value::applyAsDouble).orElse(0.0))
+                .description(description)
+                .register(registry);
+    }
+}
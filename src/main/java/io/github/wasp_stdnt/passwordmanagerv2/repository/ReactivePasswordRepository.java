@@ -0,0 +1,222 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import io.github.wasp_stdnt.passwordmanagerv2.model.PasswordTombstone;
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Statement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+// Hand-written SQL over the schema the JPA entities define; ids come from the same passwords_seq.
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePasswordRepository {
+    private static final String COLUMNS =
+            "id, service, credential, envelope, ciphertext, iv, created_at, updated_at, change_version";
+    private static final String INSERT = """
+            insert into passwords (id, user_id, service, credential, envelope, created_at, updated_at, change_version)
+            values (nextval('passwords_seq'), $1, $2, $3, $4, current_timestamp, current_timestamp, $5)""";
+
+    private final ReactiveDatabase database;
+
+    public ReactivePasswordRepository(ReactiveDatabase database) {
+        this.database = database;
+    }
+
+    public Mono<Long> insert(Long userId, long changeVersion, String service, String credential, byte[] envelope) {
+        // single() waits for completion; next() would cancel and roll back the transaction
+        return insertAll(userId, changeVersion, List.of(new NewPassword(service, credential, envelope))).single();
+    }
+
+    // One prepared statement with a binding per row, in one transaction; ids come back in input order.
+    public Flux<Long> insertAll(Long userId, long changeVersion, List<NewPassword> rows) {
+        if (rows.isEmpty()) {
+            return Flux.empty();
+        }
+        Flux<Long> ids = database.client().inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(INSERT).returnGeneratedValues("id");
+            for (int i = 0; i < rows.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                NewPassword row = rows.get(i);
+                statement.bind(0, userId)
+                        .bind(1, row.service())
+                        .bind(2, row.credential())
+                        .bind(3, row.envelope())
+                        .bind(4, changeVersion);
+            }
+            return Flux.from(statement.execute())
+                    .concatMap(result -> result.map(readable -> readable.get("id", Long.class)));
+        });
+        return ids.as(database.transactionalOperator()::transactional);
+    }
+
+    public Flux<PasswordRow> findAllByUserId(Long userId) {
+        return database.client().sql("select " + COLUMNS + " from passwords where user_id = :userId order by id")
+                .bind("userId", userId)
+                .map(ReactivePasswordRepository::toRow)
+                .all();
+    }
+
+    public Flux<PasswordRow> streamExportByUserId(Long userId) {
+        return database.client().sql("select " + COLUMNS + " from passwords where user_id = :userId order by id")
+                .bind("userId", userId)
+                .filter(statement -> statement.fetchSize(PasswordRepository.EXPORT_FETCH_SIZE))
+                .map(ReactivePasswordRepository::toRow)
+                .all();
+    }
+
+    public Mono<PasswordRow> findByIdAndUserId(Long id, Long userId) {
+        return database.client().sql("select " + COLUMNS + " from passwords where id = :id and user_id = :userId")
+                .bind("id", id)
+                .bind("userId", userId)
+                .map(ReactivePasswordRepository::toRow)
+                .one();
+    }
+
+    public Flux<PasswordRow> findPageByUserId(Long userId, long afterId, int limit) {
+        return database.client().sql("select " + COLUMNS
+                        + " from passwords where user_id = :userId and id > :afterId order by id limit :limit")
+                .bind("userId", userId)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactivePasswordRepository::toRow)
+                .all();
+    }
+
+    public Flux<PasswordRow> findChangedPage(Long userId, long afterVersion, long afterId, long upTo, int limit) {
+        return database.client().sql("select " + COLUMNS + " from passwords"
+                        + " where user_id = :userId and change_version <= :upTo"
+                        + " and (change_version > :afterVersion or (change_version = :afterVersion and id > :afterId))"
+                        + " order by change_version, id limit :limit")
+                .bind("userId", userId)
+                .bind("afterVersion", afterVersion)
+                .bind("afterId", afterId)
+                .bind("upTo", upTo)
+                .bind("limit", limit)
+                .map(ReactivePasswordRepository::toRow)
+                .all();
+    }
+
+    public Flux<PasswordTombstone> findTombstonePage(Long userId, long afterVersion, long afterId, long upTo,
+                                                     int limit) {
+        return database.client().sql("""
+                        select password_id, user_id, change_version, deleted_at
+                        from password_tombstones
+                        where user_id = :userId and change_version <= :upTo
+                          and (change_version > :afterVersion
+                               or (change_version = :afterVersion and password_id > :afterId))
+                        order by change_version, password_id
+                        limit :limit""")
+                .bind("userId", userId)
+                .bind("afterVersion", afterVersion)
+                .bind("afterId", afterId)
+                .bind("upTo", upTo)
+                .bind("limit", limit)
+                .map(ReactivePasswordRepository::toTombstone)
+                .all();
+    }
+
+    public Flux<PasswordRow> findMetadataPageByUserId(Long userId, long afterId, int limit) {
+        return database.client().sql("""
+                        select id, service, credential, created_at, updated_at
+                        from passwords
+                        where user_id = :userId and id > :afterId
+                        order by id
+                        limit :limit""")
+                .bind("userId", userId)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactivePasswordRepository::toMetadataRow)
+                .all();
+    }
+
+    public Flux<PasswordRow> searchMetadataPageByUserId(Long userId, String pattern, long afterId, int limit) {
+        return database.client().sql("""
+                        select id, service, credential, created_at, updated_at
+                        from passwords
+                        where user_id = :userId and id > :afterId
+                          and (lower(service) like :pattern escape '\\'
+                               or lower(credential) like :pattern escape '\\')
+                        order by id
+                        limit :limit""")
+                .bind("userId", userId)
+                .bind("pattern", pattern)
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ReactivePasswordRepository::toMetadataRow)
+                .all();
+    }
+
+    public Mono<Long> updateByIdAndUserId(Long id, Long userId, long changeVersion, String service, String credential,
+                                          byte[] envelope) {
+        return database.client().sql("""
+                        update passwords
+                        set service = :service, credential = :credential, envelope = :envelope,
+                            ciphertext = null, iv = null, updated_at = current_timestamp,
+                            change_version = :changeVersion
+                        where id = :id and user_id = :userId""")
+                .bind("service", service)
+                .bind("credential", credential)
+                .bind("envelope", envelope)
+                .bind("changeVersion", changeVersion)
+                .bind("id", id)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Leaves a tombstone when a row was deleted; run it in the transaction that took changeVersion.
+    public Mono<Long> deleteByIdAndUserId(Long id, Long userId, long changeVersion) {
+        return database.client().sql("delete from passwords where id = :id and user_id = :userId")
+                .bind("id", id)
+                .bind("userId", userId)
+                .fetch()
+                .rowsUpdated()
+                .flatMap(deleted -> deleted == 0 ? Mono.just(deleted) : database.client().sql("""
+                                insert into password_tombstones (password_id, user_id, change_version, deleted_at)
+                                values (:id, :userId, :changeVersion, current_timestamp)""")
+                        .bind("id", id)
+                        .bind("userId", userId)
+                        .bind("changeVersion", changeVersion)
+                        .fetch()
+                        .rowsUpdated()
+                        .thenReturn(deleted));
+    }
+
+    private static PasswordRow toRow(Readable row) {
+        return new PasswordRow(row.get("id", Long.class), row.get("service", String.class),
+                row.get("credential", String.class), row.get("envelope", byte[].class),
+                row.get("ciphertext", String.class), row.get("iv", String.class),
+                instant(row, "created_at"), instant(row, "updated_at"), row.get("change_version", Long.class));
+    }
+
+    private static PasswordRow toMetadataRow(Readable row) {
+        return new PasswordRow(row.get("id", Long.class), row.get("service", String.class),
+                row.get("credential", String.class), null, null, null,
+                instant(row, "created_at"), instant(row, "updated_at"), 0L);
+    }
+
+    private static PasswordTombstone toTombstone(Readable row) {
+        PasswordTombstone tombstone = new PasswordTombstone();
+        tombstone.setPasswordId(row.get("password_id", Long.class));
+        tombstone.setUserId(row.get("user_id", Long.class));
+        tombstone.setChangeVersion(row.get("change_version", Long.class));
+        tombstone.setDeletedAt(instant(row, "deleted_at"));
+        return tombstone;
+    }
+
+    private static Instant instant(Readable row, String column) {
+        OffsetDateTime value = row.get(column, OffsetDateTime.class);
+        return value != null ? value.toInstant() : null;
+    }
+
+    public record NewPassword(String service, String credential, byte[] envelope) {}
+}
@@ -0,0 +1,75 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserRepository {
+    private final ReactiveDatabase database;
+
+    public ReactiveUserRepository(ReactiveDatabase database) {
+        this.database = database;
+    }
+
+    public Mono<Long> findIdByEmail(String email) {
+        return database.client().sql("select id from users where lower(email) = lower(:email)")
+                .bind("email", email)
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    public Mono<Long> insert(String name, String email, String passwordHash) {
+        return database.client()
+                .sql("insert into users (name, email, password_hash) values (:name, :email, :passwordHash)")
+                .bind("name", name)
+                .bind("email", email)
+                .bind("passwordHash", passwordHash)
+                .filter(statement -> statement.returnGeneratedValues("id"))
+                .map(row -> row.get("id", Long.class))
+                .one();
+    }
+
+    public Mono<Long> findVaultVersion(Long userId) {
+        return database.client().sql("select vault_version from users where id = :id")
+                .bind("id", userId)
+                .map(row -> row.get("vault_version", Long.class))
+                .one();
+    }
+
+    public Mono<Long> bumpVaultVersion(Long userId) {
+        return database.client().sql("update users set vault_version = vault_version + 1 where id = :id")
+                .bind("id", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+
+    // Runs write with the bumped version in the same transaction as the bump. The bump holds the row lock
+    // on the user until commit, so a vault's versions become visible in order. Empty for an unknown user.
+    public <T> Mono<T> withNextVaultVersion(Long userId, Function<Long, Mono<T>> write) {
+        return bumpVaultVersion(userId)
+                .then(findVaultVersion(userId))
+                .flatMap(write)
+                .as(database.transactionalOperator()::transactional);
+    }
+
+    // Empty for an unknown user; an empty Optional when the user has no data key yet.
+    public Mono<Optional<byte[]>> findWrappedDataKey(Long userId) {
+        return database.client().sql("select wrapped_dek from users where id = :id")
+                .bind("id", userId)
+                .map(row -> Optional.ofNullable(row.get("wrapped_dek", byte[].class)))
+                .one();
+    }
+
+    public Mono<Long> setWrappedDataKeyIfAbsent(Long userId, byte[] wrapped) {
+        return database.client().sql("update users set wrapped_dek = :wrapped where id = :id and wrapped_dek is null")
+                .bind("wrapped", wrapped)
+                .bind("id", userId)
+                .fetch()
+                .rowsUpdated();
+    }
+}
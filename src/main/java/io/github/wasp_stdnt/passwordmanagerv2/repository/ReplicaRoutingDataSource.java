@@ -0,0 +1,191 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
+import io.github.wasp_stdnt.passwordmanagerv2.security.CurrentUserArgumentResolver;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The read-only target behind JPA's LazyConnectionDataSourceProxy. A replica takes a read-only transaction
+// while the replication_heartbeat it last showed is at most max-lag old and, for a user who was created or
+// wrote to their vault since, newer than that write, so users read their own writes. Each user keeps to one
+// replica while it qualifies, so a listing never comes from a replica further behind than the one that served
+// its ETag.
+// Anything else, and any replica that fails to hand out a connection, falls back to the primary.
+public class ReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    private static final String BEAT = "update replication_heartbeat set beat_at = greatest(beat_at, ?) where id = 1";
+    private static final String REPLAYED = "select beat_at from replication_heartbeat where id = 1";
+
+    private final DataSource primary;
+    private final JdbcTemplate heartbeat;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final Duration maxLag;
+    // A write older than max-lag is on every replica still in use, so it need not be remembered longer.
+    private final Cache<Long, Instant> lastWrites;
+    private final AtomicReference<Instant> lastWrite = new AtomicReference<>(Instant.EPOCH);
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong replicaReads = new AtomicLong();
+    private final AtomicLong primaryReads = new AtomicLong();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, Duration maxLag,
+                                    VaultEventBus eventBus) {
+        this.primary = primary;
+        this.maxLag = maxLag;
+        // A heartbeat slower than max-lag could not keep a replica usable anyway.
+        int timeoutSeconds = (int) Math.max(1, maxLag.toSeconds());
+        this.heartbeat = new JdbcTemplate(primary);
+        heartbeat.setQueryTimeout(timeoutSeconds);
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i), timeoutSeconds));
+        }
+        this.lastWrites = Caffeine.newBuilder().expireAfterWrite(maxLag).build();
+        eventBus.subscribe((userId, vaultVersion) -> recordWrite(userId));
+    }
+
+    // The write happened before this instant; a heartbeat stamped later is behind it in the primary's log.
+    // Across nodes that holds up to clock skew, which max-lag should comfortably exceed.
+    void recordWrite(Long userId) {
+        Instant now = Instant.now();
+        lastWrites.put(userId, now);
+        lastWrite.accumulateAndGet(now, (a, b) -> a.isAfter(b) ? a : b);
+    }
+
+    @Scheduled(fixedDelayString = "${app.datasource.replicas.check-interval:PT1S}")
+    public void refresh() {
+        try {
+            heartbeat.update(BEAT, OffsetDateTime.now(ZoneOffset.UTC));
+        } catch (DataAccessException e) {
+            log.warn("Could not advance the replication heartbeat: {}", e.getMessage());
+        }
+        for (Replica replica : replicas) {
+            try {
+                replica.replayedUpTo = replica.jdbc.queryForObject(REPLAYED, OffsetDateTime.class).toInstant();
+            } catch (DataAccessException e) {
+                if (replica.replayedUpTo != null) {
+                    log.warn("Replica {} is unreachable, reading from the primary: {}", replica.name, e.getMessage());
+                }
+                replica.replayedUpTo = null;
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Replica replica = choose(currentUser());
+        if (replica != null) {
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaReads.incrementAndGet();
+                return connection;
+            } catch (SQLException e) {
+                log.warn("Replica {} refused a connection, reading from the primary: {}", replica.name, e.getMessage());
+                replica.replayedUpTo = null;
+            }
+        }
+        primaryReads.incrementAndGet();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica pools use their configured credentials");
+    }
+
+    // Without a request, e.g. in a scheduled job, whose writes matter is unknown: require the latest of anyone's.
+    private Replica choose(Long userId) {
+        Instant writtenAt = userId != null ? lastWrites.getIfPresent(userId) : lastWrite.get();
+        Instant oldestUsable = Instant.now().minus(maxLag);
+        int start = userId != null ? Long.hashCode(userId) : next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            Instant replayed = replica.replayedUpTo;
+            if (replayed != null && !replayed.isBefore(oldestUsable)
+                    && (writtenAt == null || replayed.isAfter(writtenAt))) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static Long currentUser() {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        return request != null
+                ? (Long) request.getAttribute(CurrentUserArgumentResolver.USER_ID_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST)
+                : null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("db.replica.lag", replica, Replica::lagSeconds)
+                    .description("Age of the last heartbeat the replica has replayed; NaN while unreachable")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+        readCounter(registry, "replica", replicaReads);
+        readCounter(registry, "primary", primaryReads);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static void readCounter(MeterRegistry registry, String target, AtomicLong count) {
+        FunctionCounter.builder("db.read_only.connections", count, AtomicLong::get)
+                .description("Connections handed to read-only transactions")
+                .tag("target", target)
+                .register(registry);
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        final JdbcTemplate jdbc;
+        volatile Instant replayedUpTo;
+
+        Replica(String name, DataSource dataSource, int timeoutSeconds) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbc = new JdbcTemplate(dataSource);
+            jdbc.setQueryTimeout(timeoutSeconds);
+        }
+
+        double lagSeconds() {
+            Instant replayed = replayedUpTo;
+            return replayed != null ? Duration.between(replayed, Instant.now()).toMillis() / 1000.0 : Double.NaN;
+        }
+    }
+}
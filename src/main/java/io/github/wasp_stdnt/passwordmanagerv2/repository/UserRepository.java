@@ -1,10 +1,45 @@
 package io.github.wasp_stdnt.passwordmanagerv2.repository;
 
 import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByEmail(String email);
+    // Case-insensitive, served by the lower(email) index
+    @Query("select u from User u where lower(u.email) = lower(:email)")
+    Optional<User> findByEmail(@Param("email") String email);
     void deleteById(Long id);
-}
\ No newline at end of file
+
+    @Query("select u.vaultVersion from User u where u.id = :id")
+    Optional<Long> findVaultVersion(@Param("id") Long id);
+
+    @Modifying
+    @Query("update User u set u.vaultVersion = u.vaultVersion + 1 where u.id = :id")
+    int bumpVaultVersion(@Param("id") Long id);
+
+    @Query("select u.wrappedDataKey from User u where u.id = :id")
+    Optional<byte[]> findWrappedDataKey(@Param("id") Long id);
+
+    // Only the first writer wins; everyone else re-reads the stored key.
+    @Modifying
+    @Query("update User u set u.wrappedDataKey = :wrapped where u.id = :id and u.wrappedDataKey is null")
+    int setWrappedDataKeyIfAbsent(@Param("id") Long id, @Param("wrapped") byte[] wrapped);
+
+    @Query("""
+            select u.id as id, u.wrappedDataKey as wrappedDataKey
+            from User u
+            where u.wrappedDataKey is not null and u.id > :afterId
+            order by u.id""")
+    List<WrappedDataKeyView> findWrappedDataKeyPage(@Param("afterId") Long afterId, Limit limit);
+
+    @Modifying
+    @Query("update User u set u.wrappedDataKey = :wrapped where u.id = :id and u.wrappedDataKey = :previous")
+    int replaceWrappedDataKey(@Param("id") Long id, @Param("previous") byte[] previous,
+                              @Param("wrapped") byte[] wrapped);
+}
@@ -0,0 +1,6 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+public interface WrappedDataKeyView {
+    Long getId();
+    byte[] getWrappedDataKey();
+}
@@ -1,28 +1,48 @@
 package io.github.wasp_stdnt.passwordmanagerv2.security;
 
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
 import io.github.wasp_stdnt.passwordmanagerv2.model.User;
 import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.core.MethodParameter;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.method.support.ModelAndViewContainer;
 import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+    // The resolved id is also left on the request, where ReplicaRoutingDataSource looks for whose reads it routes.
+    public static final String USER_ID_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".userId";
 
     private final UserRepository userRepository;
+    private final UserIdCache userIdCache;
+    private final VaultEventBus vaultEvents;
+    private final Timer cacheHitTimer;
+    private final Timer databaseTimer;
 
-    public CurrentUserArgumentResolver(UserRepository userRepository) {
+    public CurrentUserArgumentResolver(UserRepository userRepository,
+                                       UserIdCache userIdCache,
+                                       VaultEventBus vaultEvents,
+                                       MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
+        this.userIdCache = userIdCache;
+        this.vaultEvents = vaultEvents;
+        this.cacheHitTimer = resolveTimer(meterRegistry, "cache");
+        this.databaseTimer = resolveTimer(meterRegistry, "database");
     }
 
     @Override
@@ -32,7 +52,6 @@ public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolve
     }
 
     @Override
-    @Transactional
     public Object resolveArgument(MethodParameter parameter,
                                   ModelAndViewContainer mavContainer,
                                   NativeWebRequest webRequest,
@@ -49,6 +68,30 @@ public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolve
             return null;
         }
 
+        long start = System.nanoTime();
+        Long cachedId = userIdCache.get(email);
+        if (cachedId != null) {
+            cacheHitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            webRequest.setAttribute(USER_ID_ATTRIBUTE, cachedId, RequestAttributes.SCOPE_REQUEST);
+            return cachedId;
+        }
+
+        Long userId = findOrProvision(email, jwt);
+        userIdCache.put(email, userId);
+        databaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        webRequest.setAttribute(USER_ID_ATTRIBUTE, userId, RequestAttributes.SCOPE_REQUEST);
+        return userId;
+    }
+
+    private static Timer resolveTimer(MeterRegistry meterRegistry, String source) {
+        return Timer.builder("security.current_user.resolve")
+                .description("Time to map the JWT subject to a user id")
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private Long findOrProvision(String email, Jwt jwt) {
         Optional<User> userOpt = userRepository.findByEmail(email);
         if (userOpt.isPresent()) {
             return userOpt.get().getId();
@@ -60,7 +103,17 @@ public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolve
         newUser.setName(givenName != null ? givenName : email);
 
         newUser.setPasswordHash("<auto-provisioned>");
-        User saved = userRepository.save(newUser);
+        User saved;
+        try {
+            saved = userRepository.save(newUser);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent first request for the same subject provisioned the user first.
+            return userRepository.findByEmail(email)
+                    .map(User::getId)
+                    .orElseThrow(() -> e);
+        }
+        // The insert has committed; announcing it keeps this user's first reads off replicas that lack the row.
+        vaultEvents.publish(saved.getId(), saved.getVaultVersion());
         return saved.getId();
     }
 }
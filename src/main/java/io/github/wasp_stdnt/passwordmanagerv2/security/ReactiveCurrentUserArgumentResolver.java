@@ -0,0 +1,93 @@
+package io.github.wasp_stdnt.passwordmanagerv2.security;
+
+import io.github.wasp_stdnt.passwordmanagerv2.repository.ReactiveUserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.MethodParameter;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+// WebFlux counterpart of CurrentUserArgumentResolver, sharing its cache and auto-provisioning rules.
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final ReactiveUserRepository userRepository;
+    private final UserIdCache userIdCache;
+    private final Timer cacheHitTimer;
+    private final Timer databaseTimer;
+
+    public ReactiveCurrentUserArgumentResolver(ReactiveUserRepository userRepository,
+                                               UserIdCache userIdCache,
+                                               MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.userIdCache = userIdCache;
+        this.cacheHitTimer = resolveTimer(meterRegistry, "cache");
+        this.databaseTimer = resolveTimer(meterRegistry, "database");
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && parameter.getParameterType().equals(Long.class);
+    }
+
+    @Override
+    public Mono<Object> resolveArgument(MethodParameter parameter,
+                                        BindingContext bindingContext,
+                                        ServerWebExchange exchange) {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .filter(authentication -> authentication.getPrincipal() instanceof Jwt)
+                .map(authentication -> (Jwt) authentication.getPrincipal())
+                .filter(jwt -> {
+                    String email = jwt.getClaimAsString("preferred_username");
+                    return email != null && !email.isBlank();
+                })
+                .flatMap(this::resolveUserId)
+                .cast(Object.class);
+    }
+
+    private Mono<Long> resolveUserId(Jwt jwt) {
+        String email = jwt.getClaimAsString("preferred_username");
+        long start = System.nanoTime();
+        Long cachedId = userIdCache.get(email);
+        if (cachedId != null) {
+            cacheHitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return Mono.just(cachedId);
+        }
+        return findOrProvision(email, jwt)
+                .doOnNext(userId -> {
+                    userIdCache.put(email, userId);
+                    databaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                });
+    }
+
+    private Mono<Long> findOrProvision(String email, Jwt jwt) {
+        String givenName = jwt.getClaimAsString("given_name");
+        return userRepository.findIdByEmail(email)
+                .switchIfEmpty(Mono.defer(() -> userRepository
+                        .insert(givenName != null ? givenName : email, email, "<auto-provisioned>")
+                        // A concurrent first request for the same subject provisioned the user first.
+                        .onErrorResume(DataIntegrityViolationException.class,
+                                e -> userRepository.findIdByEmail(email))));
+    }
+
+    private static Timer resolveTimer(MeterRegistry meterRegistry, String source) {
+        return Timer.builder("security.current_user.resolve")
+                .description("Time to map the JWT subject to a user id")
+                .tag("source", source)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}
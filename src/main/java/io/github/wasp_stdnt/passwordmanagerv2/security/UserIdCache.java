@@ -0,0 +1,103 @@
+package io.github.wasp_stdnt.passwordmanagerv2.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.github.wasp_stdnt.passwordmanagerv2.cache.CacheInvalidationBus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keyed by the lower-cased email, matching the case-insensitive lookup and unique constraint on users.email,
+// so every spelling of a subject shares one entry. Emails never change, so each id has at most one key, which
+// emailsById tracks for eviction by id.
+@Component
+public class UserIdCache implements MeterBinder {
+    static final String CACHE_NAME = "userIdCache";
+
+    private final Cache<String, Long> cache;
+    private final Map<Long, String> emailsById = new ConcurrentHashMap<>();
+    private final CacheInvalidationBus invalidationBus;
+
+    public UserIdCache(@Value("${app.security.user-cache.max-size:10000}") long maxSize,
+                       @Value("${app.security.user-cache.ttl:PT10M}") Duration ttl,
+                       CacheInvalidationBus invalidationBus) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .executor(Runnable::run)
+                .removalListener((String email, Long userId, RemovalCause cause) -> {
+                    if (userId != null) {
+                        emailsById.remove(userId, email);
+                    }
+                })
+                .build();
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe((cacheName, key) -> {
+            if (CACHE_NAME.equals(cacheName) && key != null) {
+                evictLocal(Long.valueOf(key));
+            }
+        });
+    }
+
+    public Long get(String email) {
+        return cache.getIfPresent(key(email));
+    }
+
+    public void put(String email, Long userId) {
+        String key = key(email);
+        cache.put(key, userId);
+        emailsById.put(userId, key);
+    }
+
+    // Applied after commit, so a request racing the delete cannot re-cache the id, and on every node
+    // through the same invalidation bus as the metadata cache.
+    public void evictUserId(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictEverywhere(userId);
+                }
+            });
+        } else {
+            evictEverywhere(userId);
+        }
+    }
+
+    private void evictEverywhere(Long userId) {
+        evictLocal(userId);
+        invalidationBus.publish(CACHE_NAME, userId.toString());
+    }
+
+    private void evictLocal(Long userId) {
+        String email = emailsById.remove(userId);
+        if (email != null) {
+            cache.asMap().remove(email, userId);
+        }
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+}
@@ -1,14 +1,34 @@
 package io.github.wasp_stdnt.passwordmanagerv2.service;
 
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordWriteDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface PasswordService {
+    int DEFAULT_PAGE_SIZE = 50;
+    int MAX_PAGE_SIZE = 200;
+    int MAX_IMPORT_SIZE = 5000;
+    int MAX_QUERY_LENGTH = 100;
+
     PasswordResponseDto createPassword(Long userId, PasswordWriteDto createDto);
+    PasswordImportResultDto importPasswords(Long userId, List<PasswordWriteDto> entries);
     List<PasswordResponseDto> listPasswords(Long userId);
+    void exportPasswords(Long userId, Consumer<PasswordResponseDto> sink);
+    CursorPageDto<PasswordResponseDto> listPasswordPage(Long userId, String cursor, int limit);
+    CursorPageDto<PasswordMetadataDto> listPasswordMetadata(Long userId, String cursor, int limit);
+    // since is a sync token from a previous call, or null for everything.
+    PasswordChangesDto listChanges(Long userId, String since, int limit);
+    CursorPageDto<PasswordMetadataDto> searchPasswordMetadata(Long userId, String query, boolean prefix,
+                                                              String cursor, int limit);
     PasswordResponseDto getPassword(Long userId, Long passwordId);
     PasswordResponseDto updatePassword(Long userId, Long passwordId, PasswordWriteDto updateDto);
     void deletePassword(Long userId, Long passwordId);
+    // Increases with every create, update or delete of the user's entries.
+    long getVaultVersion(Long userId);
 }
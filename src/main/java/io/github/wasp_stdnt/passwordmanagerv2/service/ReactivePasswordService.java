@@ -0,0 +1,29 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service;
+
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordWriteDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Non-blocking counterpart of PasswordService; same rules, limits and error types.
+public interface ReactivePasswordService {
+    Mono<PasswordResponseDto> createPassword(Long userId, PasswordWriteDto createDto);
+    Mono<PasswordImportResultDto> importPasswords(Long userId, List<PasswordWriteDto> entries);
+    Flux<PasswordResponseDto> listPasswords(Long userId);
+    Flux<PasswordResponseDto> exportPasswords(Long userId);
+    Mono<CursorPageDto<PasswordResponseDto>> listPasswordPage(Long userId, String cursor, int limit);
+    Mono<CursorPageDto<PasswordMetadataDto>> listPasswordMetadata(Long userId, String cursor, int limit);
+    Mono<PasswordChangesDto> listChanges(Long userId, String since, int limit);
+    Mono<CursorPageDto<PasswordMetadataDto>> searchPasswordMetadata(Long userId, String query, boolean prefix,
+                                                                    String cursor, int limit);
+    Mono<PasswordResponseDto> getPassword(Long userId, Long passwordId);
+    Mono<PasswordResponseDto> updatePassword(Long userId, Long passwordId, PasswordWriteDto updateDto);
+    Mono<Void> deletePassword(Long userId, Long passwordId);
+    Mono<Long> getVaultVersion(Long userId);
+}
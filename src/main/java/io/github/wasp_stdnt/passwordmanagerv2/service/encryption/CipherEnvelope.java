@@ -0,0 +1,84 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.encryption;
+
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+// Binary layout, version 1: [version:1][algorithm:1][iv:16][ciphertext:n]  (always master key 1)
+//                version 2: [version:1][algorithm:1][keyId:1][iv:16][ciphertext:n]  (master key keyId)
+//                version 3: [version:1][algorithm:1][iv:16][ciphertext:n]  (the owner's data key)
+public final class CipherEnvelope {
+    public static final byte VERSION_1 = 1;
+    public static final byte VERSION_2 = 2;
+    public static final byte VERSION_3 = 3;
+    public static final byte ALG_AES_CBC_PKCS5 = 1;
+    public static final int LEGACY_KEY_ID = 1;
+
+    static final int V1_IV_OFFSET = 2;
+    static final int V2_KEY_ID_OFFSET = 2;
+    static final int V2_IV_OFFSET = 3;
+    static final int V2_CIPHERTEXT_OFFSET = V2_IV_OFFSET + PasswordEncryptionService.IV_LENGTH;
+    static final int V3_IV_OFFSET = 2;
+    static final int V3_CIPHERTEXT_OFFSET = V3_IV_OFFSET + PasswordEncryptionService.IV_LENGTH;
+
+    private CipherEnvelope() {
+    }
+
+    public static byte[] fromLegacy(String ciphertextBase64, String ivBase64) {
+        byte[] iv = Base64.getDecoder().decode(ivBase64);
+        byte[] ciphertext = Base64.getDecoder().decode(ciphertextBase64);
+        if (iv.length != PasswordEncryptionService.IV_LENGTH) {
+            throw new IllegalArgumentException("Legacy IV must be " + PasswordEncryptionService.IV_LENGTH + " bytes");
+        }
+        int ciphertextOffset = V1_IV_OFFSET + iv.length;
+        byte[] envelope = new byte[ciphertextOffset + ciphertext.length];
+        envelope[0] = VERSION_1;
+        envelope[1] = ALG_AES_CBC_PKCS5;
+        System.arraycopy(iv, 0, envelope, V1_IV_OFFSET, iv.length);
+        System.arraycopy(ciphertext, 0, envelope, ciphertextOffset, ciphertext.length);
+        return envelope;
+    }
+
+    // Id of the master key that sealed this envelope.
+    public static int keyId(byte[] envelope) throws GeneralSecurityException {
+        checkHeader(envelope);
+        if (envelope[0] == VERSION_3) {
+            throw new GeneralSecurityException("Envelope is sealed with a data key, not a master key");
+        }
+        return envelope[0] == VERSION_1 ? LEGACY_KEY_ID : Byte.toUnsignedInt(envelope[V2_KEY_ID_OFFSET]);
+    }
+
+    public static boolean usesDataKey(byte[] envelope) {
+        return envelope.length > 0 && envelope[0] == VERSION_3;
+    }
+
+    static void writeHeader(byte[] envelope, int keyId) {
+        envelope[0] = VERSION_2;
+        envelope[1] = ALG_AES_CBC_PKCS5;
+        envelope[V2_KEY_ID_OFFSET] = (byte) keyId;
+    }
+
+    static void writeDataKeyHeader(byte[] envelope) {
+        envelope[0] = VERSION_3;
+        envelope[1] = ALG_AES_CBC_PKCS5;
+    }
+
+    static int ivOffset(byte[] envelope) {
+        return envelope[0] == VERSION_2 ? V2_IV_OFFSET : V1_IV_OFFSET;
+    }
+
+    static int ciphertextOffset(byte[] envelope) {
+        return ivOffset(envelope) + PasswordEncryptionService.IV_LENGTH;
+    }
+
+    static void checkHeader(byte[] envelope) throws GeneralSecurityException {
+        if (envelope.length < 2 || envelope[0] < VERSION_1 || envelope[0] > VERSION_3) {
+            throw new GeneralSecurityException("Unsupported envelope version " + (envelope.length > 0 ? envelope[0] : -1));
+        }
+        if (envelope.length <= ciphertextOffset(envelope)) {
+            throw new GeneralSecurityException("Envelope is truncated");
+        }
+        if (envelope[1] != ALG_AES_CBC_PKCS5) {
+            throw new GeneralSecurityException("Unsupported envelope algorithm " + envelope[1]);
+        }
+    }
+}
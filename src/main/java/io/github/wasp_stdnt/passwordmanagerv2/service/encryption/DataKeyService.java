@@ -0,0 +1,112 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.encryption;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.CryptoException;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.NotFoundException;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+
+// Per-user data keys, stored wrapped by the master key in users.wrapped_dek. Unwrapped keys are
+// cached so the hot path stays at one AES operation per entry; a key never changes once created
+// (master rotation only rewraps it), so entries can't go stale.
+@Service
+public class DataKeyService implements MeterBinder {
+    private final UserRepository userRepository;
+    private final PasswordEncryptionService encryptionService;
+    private final Cache<Long, SecretKey> cache;
+
+    public DataKeyService(UserRepository userRepository,
+                          PasswordEncryptionService encryptionService,
+                          @Value("${app.encryption.data-key-cache.max-size:10000}") long maxSize,
+                          @Value("${app.encryption.data-key-cache.ttl:PT10M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.encryptionService = encryptionService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Null when the user has no data key yet, i.e. has nothing sealed with one.
+    public SecretKey find(Long userId) {
+        SecretKey cached = cache.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+        return userRepository.findWrappedDataKey(userId)
+                .map(wrapped -> remember(userId, wrapped))
+                .orElse(null);
+    }
+
+    @Transactional
+    public SecretKey getOrCreate(Long userId) {
+        SecretKey existing = find(userId);
+        if (existing != null) {
+            return existing;
+        }
+        SecretKey created = encryptionService.newDataKey();
+        if (userRepository.setWrappedDataKeyIfAbsent(userId, wrap(created)) == 0) {
+            // Either a concurrent request stored its key first, or there is no such user.
+            return userRepository.findWrappedDataKey(userId)
+                    .map(wrapped -> remember(userId, wrapped))
+                    .orElseThrow(() -> new NotFoundException("User not found"));
+        }
+        // Cached only once the key is durable; a rolled-back key must never seal anything again.
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.put(userId, created);
+                }
+            });
+        } else {
+            cache.put(userId, created);
+        }
+        return created;
+    }
+
+    public SecretKey cached(Long userId) {
+        return cache.getIfPresent(userId);
+    }
+
+    public SecretKey remember(Long userId, byte[] wrapped) {
+        SecretKey key;
+        try {
+            key = encryptionService.unwrapDataKey(wrapped);
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Failed to unwrap data key", e);
+        }
+        cache.put(userId, key);
+        return key;
+    }
+
+    public void remember(Long userId, SecretKey key) {
+        cache.put(userId, key);
+    }
+
+    public byte[] wrap(SecretKey key) {
+        try {
+            return encryptionService.wrapDataKey(key);
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Failed to wrap data key", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "dataKeyCache");
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.encryption;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+@Component
+public class ParallelCryptoExecutor implements DisposableBean {
+    private static final int MIN_CHUNK_SIZE = 16;
+
+    private final ForkJoinPool pool;
+    private final int sequentialThreshold;
+
+    public ParallelCryptoExecutor(@Value("${app.encryption.parallel.max-threads:0}") int maxThreads,
+                                  @Value("${app.encryption.parallel.sequential-threshold:64}") int sequentialThreshold) {
+        int parallelism = maxThreads > 0 ? maxThreads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(parallelism, ParallelCryptoExecutor::newWorker, null, false);
+        this.sequentialThreshold = sequentialThreshold;
+    }
+
+    public <T, R> List<R> mapAll(List<T> items, Function<? super T, ? extends R> mapper) {
+        if (items.size() < sequentialThreshold || pool.getParallelism() == 1) {
+            List<R> results = new ArrayList<>(items.size());
+            for (T item : items) {
+                results.add(mapper.apply(item));
+            }
+            return results;
+        }
+        Object[] results = new Object[items.size()];
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, items.size() / (pool.getParallelism() * 4) + 1);
+        pool.invoke(new MapChunk<>(items, mapper, results, 0, items.size(), chunkSize));
+        @SuppressWarnings("unchecked")
+        List<R> list = (List<R>) Arrays.asList(results);
+        return list;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+
+    private static ForkJoinWorkerThread newWorker(ForkJoinPool pool) {
+        ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        worker.setName("crypto-" + worker.getPoolIndex());
+        return worker;
+    }
+
+    private static final class MapChunk<T, R> extends RecursiveAction {
+        private final List<T> items;
+        private final Function<? super T, ? extends R> mapper;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+
+        private MapChunk(List<T> items, Function<? super T, ? extends R> mapper,
+                         Object[] results, int from, int to, int chunkSize) {
+            this.items = items;
+            this.mapper = mapper;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                for (int i = from; i < to; i++) {
+                    results[i] = mapper.apply(items.get(i));
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new MapChunk<>(items, mapper, results, from, mid, chunkSize),
+                    new MapChunk<>(items, mapper, results, mid, to, chunkSize));
+        }
+    }
+}
@@ -1,47 +1,301 @@
 package io.github.wasp_stdnt.passwordmanagerv2.service.encryption;
 
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.Cipher;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
-import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 @Service
 public class PasswordEncryptionService {
+    public static final int IV_LENGTH = 16;
+    public static final int DATA_KEY_LENGTH = 32;
+    private static final int BLOCK_SIZE = 16;
     private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
-    private final SecretKeySpec secretKey;
-    private final SecureRandom secureRandom = new SecureRandom();
+    private static final int POOL_SIZE = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    // Master keys by id (1-255). Key 1 is app.encryption.key; it also reads version-1 envelopes
+    // and the legacy ciphertext/iv columns. New envelopes are sealed with the active key.
+    private final SecretKeySpec[] keys = new SecretKeySpec[256];
+    private final int activeKeyId;
+    // Cipher and DRBG instances are not thread-safe and costly to create. They are borrowed from small
+    // pools rather than kept per thread: with virtual threads every request runs on a new thread, which
+    // a ThreadLocal would hand a fresh provider lookup and DRBG seeding. Instances beyond the pool size,
+    // created under a burst, are dropped when returned.
+    private final BlockingQueue<Cipher> ciphers = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<SecureRandom> ivSources = new ArrayBlockingQueue<>(POOL_SIZE);
+
+    public PasswordEncryptionService(String base64Key) {
+        this(base64Key, List.of(), CipherEnvelope.LEGACY_KEY_ID);
+    }
+
+    // additionalKeys entries are "id:base64Key", e.g. app.encryption.keys=2:...,3:...
+    @Autowired
+    public PasswordEncryptionService(@Value("${app.encryption.key}") String base64Key,
+                                     @Value("${app.encryption.keys:}") List<String> additionalKeys,
+                                     @Value("${app.encryption.active-key-id:1}") int activeKeyId) {
+        keys[CipherEnvelope.LEGACY_KEY_ID] = aesKey(base64Key);
+        for (String entry : additionalKeys) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf(':');
+            if (separator < 1) {
+                throw new IllegalArgumentException("app.encryption.keys entries must look like <id>:<base64 key>");
+            }
+            int id = Integer.parseInt(entry.substring(0, separator).trim());
+            if (id < 1 || id >= keys.length || keys[id] != null) {
+                throw new IllegalArgumentException("Key id " + id + " is out of range 1-255 or defined twice");
+            }
+            keys[id] = aesKey(entry.substring(separator + 1).trim());
+        }
+        if (activeKeyId < 1 || activeKeyId >= keys.length || keys[activeKeyId] == null) {
+            throw new IllegalArgumentException("app.encryption.active-key-id " + activeKeyId + " has no key");
+        }
+        this.activeKeyId = activeKeyId;
+    }
 
-    public PasswordEncryptionService(@Value("${app.encryption.key}") String base64Key) {
-        byte[] decodedKey = Base64.getDecoder().decode(base64Key);
-        this.secretKey = new SecretKeySpec(decodedKey, "AES");
+    public int getActiveKeyId() {
+        return activeKeyId;
     }
 
+    @Timed(value = "crypto.encrypt", histogram = true)
     public EncryptedData encrypt(String plaintext) throws GeneralSecurityException {
-        byte[] iv = new byte[16];
-        secureRandom.nextBytes(iv);
-        IvParameterSpec ivSpec = new IvParameterSpec(iv);
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey, ivSpec);
-        byte[] encrypted = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+        byte[] iv = newIv();
+        byte[] encrypted = encrypt(plaintext.getBytes(StandardCharsets.UTF_8), iv);
         String ciphertext = Base64.getEncoder().encodeToString(encrypted);
         String ivBase64 = Base64.getEncoder().encodeToString(iv);
         return new EncryptedData(ciphertext, ivBase64);
     }
 
+    @Timed(value = "crypto.decrypt", histogram = true)
     public String decrypt(String ciphertextBase64, String ivBase64) throws GeneralSecurityException {
         byte[] iv = Base64.getDecoder().decode(ivBase64);
-        IvParameterSpec ivSpec = new IvParameterSpec(iv);
         byte[] encrypted = Base64.getDecoder().decode(ciphertextBase64);
-        Cipher cipher = Cipher.getInstance(TRANSFORMATION);
-        cipher.init(Cipher.DECRYPT_MODE, secretKey, ivSpec);
-        byte[] decrypted = cipher.doFinal(encrypted);
-        return new String(decrypted, StandardCharsets.UTF_8);
+        return decryptToString(encrypted, 0, encrypted.length, iv, 0);
+    }
+
+    @Timed(value = "crypto.encrypt", histogram = true)
+    public byte[] seal(String plaintext) throws GeneralSecurityException {
+        return sealBytes(plaintext.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Timed(value = "crypto.decrypt", histogram = true)
+    public String open(byte[] envelope) throws GeneralSecurityException {
+        return new String(openBytes(envelope), StandardCharsets.UTF_8);
+    }
+
+    @Timed(value = "crypto.encrypt", histogram = true)
+    public byte[] seal(String plaintext, SecretKey dataKey) throws GeneralSecurityException {
+        return sealBytes(plaintext.getBytes(StandardCharsets.UTF_8), dataKey);
+    }
+
+    // Opens either envelope kind; dataKey is only needed for version 3 and may be null otherwise.
+    @Timed(value = "crypto.decrypt", histogram = true)
+    public String open(byte[] envelope, SecretKey dataKey) throws GeneralSecurityException {
+        return new String(openBytes(envelope, dataKey), StandardCharsets.UTF_8);
+    }
+
+    // Re-encrypts under the active key without materialising the plaintext as a String.
+    public byte[] reseal(byte[] envelope) throws GeneralSecurityException {
+        byte[] plaintext = openBytes(envelope);
+        try {
+            return sealBytes(plaintext);
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    // Moves a master-sealed envelope onto the owner's data key.
+    public byte[] reseal(byte[] envelope, SecretKey dataKey) throws GeneralSecurityException {
+        byte[] plaintext = openBytes(envelope, dataKey);
+        try {
+            return sealBytes(plaintext, dataKey);
+        } finally {
+            Arrays.fill(plaintext, (byte) 0);
+        }
+    }
+
+    public SecretKey newDataKey() {
+        byte[] raw = new byte[DATA_KEY_LENGTH];
+        randomBytes(raw);
+        try {
+            return new SecretKeySpec(raw, "AES");
+        } finally {
+            Arrays.fill(raw, (byte) 0);
+        }
+    }
+
+    // A wrapped data key is an ordinary version 2 envelope, so a master key rotation rewraps it with reseal().
+    public byte[] wrapDataKey(SecretKey dataKey) throws GeneralSecurityException {
+        byte[] raw = dataKey.getEncoded();
+        try {
+            return sealBytes(raw);
+        } finally {
+            Arrays.fill(raw, (byte) 0);
+        }
+    }
+
+    public SecretKey unwrapDataKey(byte[] wrapped) throws GeneralSecurityException {
+        byte[] raw = openBytes(wrapped);
+        try {
+            if (raw.length != DATA_KEY_LENGTH) {
+                throw new GeneralSecurityException("Wrapped data key has the wrong length");
+            }
+            return new SecretKeySpec(raw, "AES");
+        } finally {
+            Arrays.fill(raw, (byte) 0);
+        }
+    }
+
+    private byte[] sealBytes(byte[] plaintext) throws GeneralSecurityException {
+        byte[] envelope = new byte[CipherEnvelope.V2_CIPHERTEXT_OFFSET + ciphertextLength(plaintext.length)];
+        CipherEnvelope.writeHeader(envelope, activeKeyId);
+        byte[] iv = newIv();
+        System.arraycopy(iv, 0, envelope, CipherEnvelope.V2_IV_OFFSET, IV_LENGTH);
+        encrypt(keys[activeKeyId], plaintext, iv, 0, envelope, CipherEnvelope.V2_CIPHERTEXT_OFFSET);
+        return envelope;
+    }
+
+    private byte[] sealBytes(byte[] plaintext, SecretKey dataKey) throws GeneralSecurityException {
+        byte[] envelope = new byte[CipherEnvelope.V3_CIPHERTEXT_OFFSET + ciphertextLength(plaintext.length)];
+        CipherEnvelope.writeDataKeyHeader(envelope);
+        byte[] iv = newIv();
+        System.arraycopy(iv, 0, envelope, CipherEnvelope.V3_IV_OFFSET, IV_LENGTH);
+        encrypt(dataKey, plaintext, iv, 0, envelope, CipherEnvelope.V3_CIPHERTEXT_OFFSET);
+        return envelope;
+    }
+
+    private byte[] openBytes(byte[] envelope, SecretKey dataKey) throws GeneralSecurityException {
+        if (!CipherEnvelope.usesDataKey(envelope)) {
+            return openBytes(envelope);
+        }
+        CipherEnvelope.checkHeader(envelope);
+        if (dataKey == null) {
+            throw new GeneralSecurityException("Envelope needs a data key but none was given");
+        }
+        return decrypt(dataKey, envelope, CipherEnvelope.V3_CIPHERTEXT_OFFSET,
+                envelope.length - CipherEnvelope.V3_CIPHERTEXT_OFFSET, envelope, CipherEnvelope.V3_IV_OFFSET);
+    }
+
+    private byte[] openBytes(byte[] envelope) throws GeneralSecurityException {
+        SecretKey key = key(CipherEnvelope.keyId(envelope));
+        int ciphertextOffset = CipherEnvelope.ciphertextOffset(envelope);
+        return decrypt(key, envelope, ciphertextOffset, envelope.length - ciphertextOffset,
+                envelope, CipherEnvelope.ivOffset(envelope));
+    }
+
+    public byte[] newIv() {
+        byte[] iv = new byte[IV_LENGTH];
+        randomBytes(iv);
+        return iv;
+    }
+
+    public int ciphertextLength(int plaintextLength) {
+        return (plaintextLength / BLOCK_SIZE + 1) * BLOCK_SIZE;
+    }
+
+    public byte[] encrypt(byte[] plaintext, byte[] iv) throws GeneralSecurityException {
+        byte[] output = new byte[ciphertextLength(plaintext.length)];
+        encrypt(plaintext, iv, output, 0);
+        return output;
+    }
+
+    // The byte-level API below is the legacy column format and always uses key 1.
+    public int encrypt(byte[] plaintext, byte[] iv, byte[] output, int outputOffset) throws GeneralSecurityException {
+        return encrypt(keys[CipherEnvelope.LEGACY_KEY_ID], plaintext, iv, 0, output, outputOffset);
+    }
+
+    public byte[] decrypt(byte[] ciphertext, int offset, int length, byte[] iv, int ivOffset)
+            throws GeneralSecurityException {
+        return decrypt(keys[CipherEnvelope.LEGACY_KEY_ID], ciphertext, offset, length, iv, ivOffset);
+    }
+
+    public String decryptToString(byte[] ciphertext, int offset, int length, byte[] iv, int ivOffset)
+            throws GeneralSecurityException {
+        return new String(decrypt(ciphertext, offset, length, iv, ivOffset), StandardCharsets.UTF_8);
+    }
+
+    private int encrypt(SecretKey key, byte[] plaintext, byte[] iv, int ivOffset, byte[] output, int outputOffset)
+            throws GeneralSecurityException {
+        Cipher cipher = borrowCipher();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, key, new IvParameterSpec(iv, ivOffset, IV_LENGTH));
+            return cipher.doFinal(plaintext, 0, plaintext.length, output, outputOffset);
+        } finally {
+            ciphers.offer(cipher);
+        }
+    }
+
+    private byte[] decrypt(SecretKey key, byte[] ciphertext, int offset, int length, byte[] iv, int ivOffset)
+            throws GeneralSecurityException {
+        Cipher cipher = borrowCipher();
+        try {
+            cipher.init(Cipher.DECRYPT_MODE, key, new IvParameterSpec(iv, ivOffset, IV_LENGTH));
+            return cipher.doFinal(ciphertext, offset, length);
+        } finally {
+            ciphers.offer(cipher);
+        }
+    }
+
+    // init() resets whatever state a failed call left behind, so a returned cipher is always reusable.
+    private Cipher borrowCipher() {
+        Cipher cipher = ciphers.poll();
+        return cipher != null ? cipher : newCipher();
+    }
+
+    private void randomBytes(byte[] bytes) {
+        SecureRandom ivSource = ivSources.poll();
+        if (ivSource == null) {
+            ivSource = newIvSource();
+        }
+        try {
+            ivSource.nextBytes(bytes);
+        } finally {
+            ivSources.offer(ivSource);
+        }
+    }
+
+    private SecretKeySpec key(int keyId) throws GeneralSecurityException {
+        SecretKeySpec key = keys[keyId];
+        if (key == null) {
+            throw new GeneralSecurityException("No master key with id " + keyId);
+        }
+        return key;
+    }
+
+    private static SecretKeySpec aesKey(String base64Key) {
+        return new SecretKeySpec(Base64.getDecoder().decode(base64Key), "AES");
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (NoSuchAlgorithmException | NoSuchPaddingException e) {
+            throw new IllegalStateException("Cipher " + TRANSFORMATION + " is not available", e);
+        }
+    }
+
+    private static SecureRandom newIvSource() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
     }
 
     public record EncryptedData(String ciphertext, String iv) {}
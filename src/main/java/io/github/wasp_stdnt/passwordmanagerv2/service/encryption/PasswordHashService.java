@@ -1,21 +1,129 @@
 package io.github.wasp_stdnt.passwordmanagerv2.service.encryption;
 
+import io.github.wasp_stdnt.passwordmanagerv2.exception.ServiceUnavailableException;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// bcrypt is CPU-bound by design, so it runs on its own small pool instead of request threads.
+// When the pool and its queue are full, callers get a 503 rather than piling up behind it.
 @Service
-public class PasswordHashService {
-    private final BCryptPasswordEncoder encoder;
+public class PasswordHashService implements DisposableBean, MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashService.class);
+
+    static final int MIN_STRENGTH = 10;
+    static final int MAX_STRENGTH = 16;
 
-    public PasswordHashService() {
-        this.encoder = new BCryptPasswordEncoder();
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration retryAfter;
+
+    @Autowired
+    public PasswordHashService(@Value("${app.security.bcrypt.strength:0}") int strength,
+                               @Value("${app.security.bcrypt.target-latency:PT0.1S}") Duration targetLatency,
+                               @Value("${app.security.bcrypt.max-threads:0}") int maxThreads,
+                               @Value("${app.security.bcrypt.queue-capacity:16}") int queueCapacity,
+                               @Value("${app.security.bcrypt.retry-after:PT1S}") Duration retryAfter) {
+        this(new BCryptPasswordEncoder(strength > 0 ? strength : calibrateStrength(targetLatency)),
+                maxThreads, queueCapacity, retryAfter);
     }
 
+    public PasswordHashService(PasswordEncoder encoder, int maxThreads, int queueCapacity, Duration retryAfter) {
+        int threads = maxThreads > 0 ? maxThreads : Runtime.getRuntime().availableProcessors();
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity)
+                : new SynchronousQueue<>();
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.encoder = encoder;
+        // Platform threads even in virtual-thread mode: the work is CPU-bound and the pool size is the limit.
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread worker = new Thread(runnable, "bcrypt-" + threadIndex.getAndIncrement());
+            worker.setDaemon(true);
+            return worker;
+        }, new ThreadPoolExecutor.AbortPolicy());
+        this.retryAfter = retryAfter;
+    }
+
+    @Timed(value = "crypto.bcrypt", histogram = true)
     public String hashPassword(String rawPassword) {
-        return encoder.encode(rawPassword);
+        return run(() -> encoder.encode(rawPassword));
     }
 
+    @Timed(value = "crypto.bcrypt", histogram = true)
     public boolean matches(String rawPassword, String encodedPassword) {
-        return encoder.matches(rawPassword, encodedPassword);
+        return run(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        new ExecutorServiceMetrics(executor, "bcrypt", List.of()).bindTo(registry);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    // Picks the highest cost whose hash stays within the target, never below the bcrypt default.
+    static int calibrateStrength(Duration targetLatency) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(MIN_STRENGTH);
+        long nanos = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            nanos = Math.min(nanos, System.nanoTime() - start);
+        }
+        int strength = MIN_STRENGTH;
+        // each extra cost round doubles the work
+        while (strength < MAX_STRENGTH && nanos * 2 <= targetLatency.toNanos()) {
+            nanos *= 2;
+            strength++;
+        }
+        log.info("Calibrated bcrypt strength {} (~{} ms per hash, target {} ms)",
+                strength, nanos / 1_000_000, targetLatency.toMillis());
+        return strength;
+    }
+
+    private <T> T run(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new ServiceUnavailableException("Password hashing is at capacity, retry later", retryAfter);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
     }
 }
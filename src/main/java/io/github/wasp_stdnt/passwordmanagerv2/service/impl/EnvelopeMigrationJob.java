@@ -0,0 +1,201 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
+
+import io.github.wasp_stdnt.passwordmanagerv2.model.EnvelopeMigrationProgress;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.EnvelopeMigrationProgressRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.EnvelopeView;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.LegacyCiphertextView;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.CipherEnvelope;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.DataKeyService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Brings old rows up to the current format in two scans: legacy ciphertext/iv columns into an
+// envelope, then envelopes sealed directly by a master key onto their owner's data key. Each scan's
+// cursor is committed with its chunk, so a restarted node carries on instead of rescanning from id 0.
+@Component
+public class EnvelopeMigrationJob {
+    private static final Logger log = LoggerFactory.getLogger(EnvelopeMigrationJob.class);
+    private static final int MAX_PENDING = 10_000;
+    private static final byte[] DATA_KEY_VERSION = {CipherEnvelope.VERSION_3};
+    static final String LEGACY_SCAN = "legacy";
+    static final String ADOPTION_SCAN = "adoption";
+
+    private final PasswordRepository passwordRepository;
+    private final EnvelopeMigrationProgressRepository progressRepository;
+    private final PasswordEncryptionService encryptionService;
+    private final DataKeyService dataKeys;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Set<Long> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean scanComplete;
+    private volatile boolean adoptionComplete;
+
+    public EnvelopeMigrationJob(PasswordRepository passwordRepository,
+                                EnvelopeMigrationProgressRepository progressRepository,
+                                PasswordEncryptionService encryptionService,
+                                DataKeyService dataKeys,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.encryption.migration.enabled:true}") boolean enabled,
+                                @Value("${app.encryption.migration.batch-size:200}") int batchSize) {
+        this.passwordRepository = passwordRepository;
+        this.progressRepository = progressRepository;
+        this.encryptionService = encryptionService;
+        this.dataKeys = dataKeys;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    public void enqueue(Long passwordId) {
+        if (enabled && pending.size() < MAX_PENDING) {
+            pending.add(passwordId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.encryption.migration.interval:PT2S}")
+    public void runPass() {
+        if (!enabled) {
+            return;
+        }
+        int migrated = migratePending();
+        if (!scanComplete && migrated < batchSize) {
+            migrated += migrateNextChunk(batchSize - migrated);
+        }
+        if (scanComplete && !adoptionComplete && migrated < batchSize) {
+            adoptNextChunk(batchSize - migrated);
+        }
+    }
+
+    public boolean isScanComplete() {
+        return scanComplete;
+    }
+
+    public boolean isAdoptionComplete() {
+        return adoptionComplete;
+    }
+
+    int migratePending() {
+        List<Long> ids = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<Long> it = pending.iterator();
+        while (it.hasNext() && ids.size() < batchSize) {
+            ids.add(it.next());
+            it.remove();
+        }
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return migrate(passwordRepository.findLegacyByIdIn(ids));
+    }
+
+    int migrateNextChunk(int limit) {
+        Integer migrated = transactionTemplate.execute(status -> {
+            EnvelopeMigrationProgress progress = lockProgress(LEGACY_SCAN);
+            if (progress.getCompletedAt() == null) {
+                List<LegacyCiphertextView> rows = passwordRepository.findLegacyPage(progress.getLastId(),
+                        Limit.of(limit));
+                if (!rows.isEmpty()) {
+                    progress.setLastId(rows.get(rows.size() - 1).getId());
+                    progressRepository.save(progress);
+                    return migrate(rows);
+                }
+                finish(progress);
+                log.info("Legacy ciphertext scan finished; all rows use the binary envelope");
+            }
+            scanComplete = true;
+            return 0;
+        });
+        return migrated == null ? 0 : migrated;
+    }
+
+    int adoptNextChunk(int limit) {
+        Integer adopted = transactionTemplate.execute(status -> {
+            EnvelopeMigrationProgress progress = lockProgress(ADOPTION_SCAN);
+            if (progress.getCompletedAt() == null) {
+                List<EnvelopeView> rows = passwordRepository.findMasterSealedPage(progress.getLastId(),
+                        DATA_KEY_VERSION, limit);
+                if (!rows.isEmpty()) {
+                    progress.setLastId(rows.get(rows.size() - 1).getId());
+                    progressRepository.save(progress);
+                    return adopt(rows);
+                }
+                finish(progress);
+                log.info("Master-sealed envelope scan finished; all rows use per-user data keys");
+            }
+            adoptionComplete = true;
+            return 0;
+        });
+        return adopted == null ? 0 : adopted;
+    }
+
+    private EnvelopeMigrationProgress lockProgress(String scan) {
+        return progressRepository.lockByScan(scan).orElseGet(() -> {
+            EnvelopeMigrationProgress progress = new EnvelopeMigrationProgress();
+            progress.setScan(scan);
+            progress.setLastId(0L);
+            return progressRepository.saveAndFlush(progress);
+        });
+    }
+
+    private void finish(EnvelopeMigrationProgress progress) {
+        progress.setCompletedAt(Instant.now());
+        progressRepository.save(progress);
+    }
+
+    private int adopt(List<EnvelopeView> rows) {
+        Map<Long, SecretKey> keys = new HashMap<>();
+        int count = 0;
+        for (EnvelopeView row : rows) {
+            SecretKey dataKey = keys.computeIfAbsent(row.getUserId(), dataKeys::getOrCreate);
+            byte[] envelope;
+            try {
+                envelope = encryptionService.reseal(row.getEnvelope(), dataKey);
+            } catch (GeneralSecurityException e) {
+                log.warn("Skipping password {}: envelope cannot be opened", row.getId(), e);
+                continue;
+            }
+            count += passwordRepository.replaceEnvelope(row.getId(), row.getEnvelope(), envelope);
+        }
+        return count;
+    }
+
+    private int migrate(List<LegacyCiphertextView> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        Integer migrated = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (LegacyCiphertextView row : rows) {
+                byte[] envelope;
+                try {
+                    envelope = CipherEnvelope.fromLegacy(row.getCiphertext(), row.getIv());
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping password {}: legacy ciphertext is malformed", row.getId(), e);
+                    continue;
+                }
+                count += passwordRepository.migrateToEnvelope(row.getId(), envelope);
+            }
+            return count;
+        });
+        return migrated == null ? 0 : migrated;
+    }
+}
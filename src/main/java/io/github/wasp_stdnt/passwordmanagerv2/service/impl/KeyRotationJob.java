@@ -0,0 +1,179 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
+
+import io.github.wasp_stdnt.passwordmanagerv2.model.EnvelopeMigrationProgress;
+import io.github.wasp_stdnt.passwordmanagerv2.model.KeyRotationProgress;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.EnvelopeMigrationProgressRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.KeyRotationProgressRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.WrappedDataKeyView;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.CipherEnvelope;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.ParallelCryptoExecutor;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// Rewraps every user's data key under the active master key, one keyset chunk of users per pass,
+// so the throughput ceiling is chunk-size users per interval. Password rows are not touched: they
+// are sealed with the data keys, which do not change. The cursor is committed with each chunk,
+// which lets a restarted (or different) node carry on where the last one stopped. Rows still sealed
+// directly by a master key (legacy columns, envelope versions 1 and 2) are moved onto data keys by
+// EnvelopeMigrationJob, so the rotation only counts as complete once that adoption has finished too.
+// Completion is read from both progress tables, so every node reports the same whichever node did the work.
+@Component
+public class KeyRotationJob implements MeterBinder {
+    private static final Logger log = LoggerFactory.getLogger(KeyRotationJob.class);
+
+    private final UserRepository userRepository;
+    private final KeyRotationProgressRepository progressRepository;
+    private final PasswordEncryptionService encryptionService;
+    private final ParallelCryptoExecutor cryptoExecutor;
+    private final EnvelopeMigrationProgressRepository envelopeProgressRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int chunkSize;
+    private volatile long rotated;
+    private volatile long lastId;
+    // Lets this node's passes stop once the keys are rewrapped; isComplete() does not rely on it.
+    private volatile boolean keysRewrapped;
+
+    public KeyRotationJob(UserRepository userRepository,
+                          KeyRotationProgressRepository progressRepository,
+                          PasswordEncryptionService encryptionService,
+                          ParallelCryptoExecutor cryptoExecutor,
+                          EnvelopeMigrationProgressRepository envelopeProgressRepository,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.encryption.rotation.enabled:true}") boolean enabled,
+                          @Value("${app.encryption.rotation.chunk-size:500}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.progressRepository = progressRepository;
+        this.encryptionService = encryptionService;
+        this.cryptoExecutor = cryptoExecutor;
+        this.envelopeProgressRepository = envelopeProgressRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${app.encryption.rotation.interval:PT1S}")
+    public void runPass() {
+        if (enabled && !keysRewrapped) {
+            rotateNextChunk();
+        }
+    }
+
+    public boolean isComplete() {
+        boolean dataKeysRewrapped = progressRepository.findById(encryptionService.getActiveKeyId())
+                .map(KeyRotationProgress::getCompletedAt)
+                .isPresent();
+        return dataKeysRewrapped && envelopeProgressRepository.findById(EnvelopeMigrationJob.ADOPTION_SCAN)
+                .map(EnvelopeMigrationProgress::getCompletedAt)
+                .isPresent();
+    }
+
+    // Keys rewrapped in this chunk, or -1 once the active key covers every user.
+    int rotateNextChunk() {
+        int targetKeyId = encryptionService.getActiveKeyId();
+        Integer result = transactionTemplate.execute(status -> {
+            KeyRotationProgress progress = progressRepository.lockByKeyId(targetKeyId)
+                    .orElseGet(() -> start(targetKeyId));
+            if (progress.getCompletedAt() != null) {
+                publish(progress);
+                return -1;
+            }
+            List<WrappedDataKeyView> rows = userRepository.findWrappedDataKeyPage(progress.getLastId(),
+                    Limit.of(chunkSize));
+            if (rows.isEmpty()) {
+                progress.setCompletedAt(Instant.now());
+                progressRepository.save(progress);
+                publish(progress);
+                log.info("Key rotation to key {} finished: {} data keys rewrapped", targetKeyId, progress.getRotated());
+                return -1;
+            }
+            int count = rotate(stale(rows, targetKeyId));
+            progress.setLastId(rows.get(rows.size() - 1).getId());
+            progress.setRotated(progress.getRotated() + count);
+            progressRepository.save(progress);
+            publish(progress);
+            log.info("Key rotation to key {}: {} data keys rewrapped, cursor at user {}",
+                    targetKeyId, progress.getRotated(), progress.getLastId());
+            return count;
+        });
+        return result == null ? 0 : result;
+    }
+
+    private KeyRotationProgress start(int keyId) {
+        KeyRotationProgress progress = new KeyRotationProgress();
+        progress.setKeyId(keyId);
+        progress.setLastId(0L);
+        progress.setRotated(0L);
+        progress.setStartedAt(Instant.now());
+        log.info("Starting key rotation to key {}", keyId);
+        return progressRepository.saveAndFlush(progress);
+    }
+
+    private List<WrappedDataKeyView> stale(List<WrappedDataKeyView> rows, int targetKeyId) {
+        List<WrappedDataKeyView> stale = new ArrayList<>(rows.size());
+        for (WrappedDataKeyView row : rows) {
+            try {
+                if (CipherEnvelope.keyId(row.getWrappedDataKey()) != targetKeyId) {
+                    stale.add(row);
+                }
+            } catch (GeneralSecurityException e) {
+                log.warn("Skipping user {}: wrapped data key header is malformed", row.getId(), e);
+            }
+        }
+        return stale;
+    }
+
+    private int rotate(List<WrappedDataKeyView> rows) {
+        List<byte[]> rewrapped = cryptoExecutor.mapAll(rows, row -> {
+            try {
+                return encryptionService.reseal(row.getWrappedDataKey());
+            } catch (GeneralSecurityException e) {
+                log.warn("Skipping user {}: wrapped data key cannot be opened", row.getId(), e);
+                return null;
+            }
+        });
+        int count = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (rewrapped.get(i) != null) {
+                count += userRepository.replaceWrappedDataKey(rows.get(i).getId(),
+                        rows.get(i).getWrappedDataKey(), rewrapped.get(i));
+            }
+        }
+        return count;
+    }
+
+    private void publish(KeyRotationProgress progress) {
+        rotated = progress.getRotated();
+        lastId = progress.getLastId();
+        keysRewrapped = progress.getCompletedAt() != null;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("crypto.key.rotation.rows", this, job -> job.rotated)
+                .description("Data keys rewrapped under the active master key")
+                .register(registry);
+        Gauge.builder("crypto.key.rotation.cursor", this, job -> job.lastId)
+                .description("Highest user id the key rotation has passed")
+                .register(registry);
+        Gauge.builder("crypto.key.rotation.complete", this, job -> job.isComplete() ? 1 : 0)
+                .description("1 once every data key is rewrapped and every row is sealed by a data key")
+                .register(registry);
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
+
+import io.github.wasp_stdnt.passwordmanagerv2.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+final class PageCursor {
+    private static final String PREFIX = "v1:";
+
+    private PageCursor() {
+    }
+
+    static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            long lastId = Long.parseLong(raw.substring(PREFIX.length()));
+            if (lastId < 0) {
+                throw new BadRequestException("Invalid cursor");
+            }
+            return lastId;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor", e);
+        }
+    }
+}
@@ -1,105 +1,288 @@
 package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
 
+import io.github.wasp_stdnt.passwordmanagerv2.config.CacheConfig;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportItemDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordWriteDto;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.BadRequestException;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.CryptoException;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.NotFoundException;
 import io.github.wasp_stdnt.passwordmanagerv2.model.Password;
+import io.github.wasp_stdnt.passwordmanagerv2.model.PasswordTombstone;
 import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordExportView;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordMetadataView;
 import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordTombstoneRepository;
 import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
 import io.github.wasp_stdnt.passwordmanagerv2.service.PasswordService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.DataKeyService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.ParallelCryptoExecutor;
 import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
-//import org.springframework.cache.annotation.CacheEvict;
-//import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
 
+import javax.crypto.SecretKey;
 import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PasswordServiceImpl implements PasswordService {
     private final PasswordRepository passwordRepository;
+    private final PasswordTombstoneRepository tombstoneRepository;
     private final UserRepository userRepository;
     private final PasswordEncryptionService encryptionService;
+    private final DataKeyService dataKeys;
+    private final ParallelCryptoExecutor cryptoExecutor;
+    private final EnvelopeMigrationJob envelopeMigrationJob;
+    private final VaultEventBus vaultEvents;
 
     public PasswordServiceImpl(PasswordRepository passwordRepository,
+                               PasswordTombstoneRepository tombstoneRepository,
                                UserRepository userRepository,
-                               PasswordEncryptionService encryptionService) {
+                               PasswordEncryptionService encryptionService,
+                               DataKeyService dataKeys,
+                               ParallelCryptoExecutor cryptoExecutor,
+                               EnvelopeMigrationJob envelopeMigrationJob,
+                               VaultEventBus vaultEvents) {
         this.passwordRepository = passwordRepository;
+        this.tombstoneRepository = tombstoneRepository;
         this.userRepository = userRepository;
         this.encryptionService = encryptionService;
+        this.dataKeys = dataKeys;
+        this.cryptoExecutor = cryptoExecutor;
+        this.envelopeMigrationJob = envelopeMigrationJob;
+        this.vaultEvents = vaultEvents;
     }
 
     @Override
     @Transactional
-    // @CacheEvict(cacheNames = "passwords", key = "#userId")
+    @CacheEvict(cacheNames = CacheConfig.PASSWORD_METADATA, key = "#userId")
     public PasswordResponseDto createPassword(Long userId, PasswordWriteDto createDto) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found"));
-        PasswordEncryptionService.EncryptedData data;
-        try {
-            data = encryptionService.encrypt(createDto.getPassword());
-        } catch (GeneralSecurityException e) {
-            throw new CryptoException("Failed to encrypt password", e);
-        }
+        byte[] envelope = seal(dataKeys.getOrCreate(userId), createDto.getPassword());
         Password entity = new Password();
         entity.setService(createDto.getService());
         entity.setCredential(createDto.getCredential());
-        entity.setCiphertext(data.ciphertext());
-        entity.setIv(data.iv());
-        entity.setUser(user);
-        Password saved = passwordRepository.save(entity);
-        String decrypted;
-        try {
-            decrypted = encryptionService.decrypt(saved.getCiphertext(), saved.getIv());
-        } catch (GeneralSecurityException e) {
-            throw new CryptoException("Failed to decrypt password after saving", e);
-        }
+        entity.setEnvelope(envelope);
+        entity.setChangeVersion(nextVaultVersion(userId));
+        entity.setUser(userRepository.getReferenceById(userId));
+        Password saved = passwordRepository.saveAndFlush(entity);
         return PasswordResponseDto.builder()
                 .id(saved.getId())
                 .service(saved.getService())
                 .credential(saved.getCredential())
-                .password(decrypted)
+                .password(createDto.getPassword())
+                .build();
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PASSWORD_METADATA, key = "#userId")
+    public PasswordImportResultDto importPasswords(Long userId, List<PasswordWriteDto> entries) {
+        if (entries == null || entries.isEmpty()) {
+            throw new BadRequestException("At least one entry is required");
+        }
+        if (entries.size() > MAX_IMPORT_SIZE) {
+            throw new BadRequestException("At most " + MAX_IMPORT_SIZE + " entries can be imported at once");
+        }
+        PasswordImportItemDto[] results = new PasswordImportItemDto[entries.size()];
+        List<Integer> accepted = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            String error = rejectionReason(entries.get(i));
+            if (error == null) {
+                accepted.add(i);
+            } else {
+                results[i] = PasswordImportItemDto.builder().index(i).error(error).build();
+            }
+        }
+        SecretKey dataKey = accepted.isEmpty() ? null : dataKeys.getOrCreate(userId);
+        List<byte[]> envelopes = cryptoExecutor.mapAll(accepted, i -> seal(dataKey, entries.get(i).getPassword()));
+        long changeVersion = accepted.isEmpty() ? 0 : nextVaultVersion(userId);
+        User user = userRepository.getReferenceById(userId);
+        List<Password> entities = new ArrayList<>(accepted.size());
+        for (int n = 0; n < accepted.size(); n++) {
+            PasswordWriteDto entry = entries.get(accepted.get(n));
+            Password entity = new Password();
+            entity.setService(entry.getService());
+            entity.setCredential(entry.getCredential());
+            entity.setEnvelope(envelopes.get(n));
+            entity.setChangeVersion(changeVersion);
+            entity.setUser(user);
+            entities.add(entity);
+        }
+        passwordRepository.saveAllAndFlush(entities);
+        for (int n = 0; n < accepted.size(); n++) {
+            int index = accepted.get(n);
+            results[index] = PasswordImportItemDto.builder().index(index).id(entities.get(n).getId()).build();
+        }
+        return PasswordImportResultDto.builder()
+                .imported(entities.size())
+                .rejected(entries.size() - entities.size())
+                .items(Arrays.asList(results))
                 .build();
     }
 
     @Override
     @Transactional(readOnly = true)
-    // @Cacheable(cacheNames = "passwords", key = "#userId")
     public List<PasswordResponseDto> listPasswords(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found"));
-        return passwordRepository.findByUser(user).stream()
-                .map(pw -> {
-                    String decrypted;
-                    try {
-                        decrypted = encryptionService.decrypt(pw.getCiphertext(), pw.getIv());
-                    } catch (GeneralSecurityException e) {
-                        throw new CryptoException("Failed to decrypt password", e);
-                    }
-                    return PasswordResponseDto.builder()
-                            .id(pw.getId())
-                            .service(pw.getService())
-                            .credential(pw.getCredential())
-                            .password(decrypted)
-                            .build();
-                })
-                .collect(Collectors.toList());
+        SecretKey dataKey = dataKeys.find(userId);
+        return cryptoExecutor.mapAll(passwordRepository.findAllByUserId(userId), pw -> toResponseDto(pw, dataKey));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportPasswords(Long userId, Consumer<PasswordResponseDto> sink) {
+        SecretKey dataKey = dataKeys.find(userId);
+        try (Stream<PasswordExportView> rows = passwordRepository.streamExportByUserId(userId)) {
+            rows.forEach(row -> sink.accept(toResponseDto(row, dataKey)));
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<PasswordResponseDto> listPasswordPage(Long userId, String cursor, int limit) {
+        requireValidLimit(limit);
+        long afterId = PageCursor.decode(cursor);
+        List<Password> rows = passwordRepository.findPageByUserId(userId, afterId, Limit.of(limit + 1));
+        boolean hasMore = rows.size() > limit;
+        List<Password> page = hasMore ? rows.subList(0, limit) : rows;
+        SecretKey dataKey = page.isEmpty() ? null : dataKeys.find(userId);
+        List<PasswordResponseDto> items = cryptoExecutor.mapAll(page, pw -> toResponseDto(pw, dataKey));
+        return CursorPageDto.<PasswordResponseDto>builder()
+                .items(items)
+                .nextCursor(hasMore ? PageCursor.encode(page.get(page.size() - 1).getId()) : null)
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    // Only the first page at the default size is cached; it is what clients load on every vault open.
+    @Cacheable(cacheNames = CacheConfig.PASSWORD_METADATA, key = "#userId",
+            condition = "#cursor == null && #limit == T(io.github.wasp_stdnt.passwordmanagerv2.service.PasswordService).DEFAULT_PAGE_SIZE")
+    public CursorPageDto<PasswordMetadataDto> listPasswordMetadata(Long userId, String cursor, int limit) {
+        requireValidLimit(limit);
+        long afterId = PageCursor.decode(cursor);
+        List<PasswordMetadataView> rows = passwordRepository.findMetadataPageByUserId(
+                userId, afterId, Limit.of(limit + 1));
+        return metadataPage(rows, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PasswordChangesDto listChanges(Long userId, String since, int limit) {
+        requireValidLimit(limit);
+        long vaultVersion = getVaultVersion(userId);
+        SyncToken from = SyncToken.decode(since, vaultVersion);
+        SyncToken tombstonesFrom = from.tombstoneStart();
+        List<Password> upserts = passwordRepository.findChangedPage(
+                userId, from.version(), from.afterId(), vaultVersion, Limit.of(limit + 1));
+        List<PasswordTombstone> tombstones = tombstoneRepository.findChangedPage(
+                userId, tombstonesFrom.version(), tombstonesFrom.afterId(), vaultVersion, Limit.of(limit + 1));
+        SyncToken.Window<Password> window = from.window(vaultVersion, limit,
+                upserts, Password::getChangeVersion, Password::getId, tombstones);
+        SecretKey dataKey = window.upserts().isEmpty() ? null : dataKeys.find(userId);
+        List<PasswordResponseDto> items = cryptoExecutor.mapAll(window.upserts(), pw -> toResponseDto(pw, dataKey));
+        return changes(window, items);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<PasswordMetadataDto> searchPasswordMetadata(Long userId, String query, boolean prefix,
+                                                                     String cursor, int limit) {
+        requireValidLimit(limit);
+        String pattern = searchPattern(query, prefix);
+        long afterId = PageCursor.decode(cursor);
+        List<PasswordMetadataView> rows = passwordRepository.searchMetadataPageByUserId(
+                userId, pattern, afterId, Limit.of(limit + 1));
+        return metadataPage(rows, limit);
     }
 
     @Override
     @Transactional(readOnly = true)
     public PasswordResponseDto getPassword(Long userId, Long passwordId) {
-        Password pw = passwordRepository.findByIdAndUser(passwordId,
-                        userRepository.findById(userId)
-                                .orElseThrow(() -> new NotFoundException("User not found")))
+        Password pw = passwordRepository.findByIdAndUserId(passwordId, userId)
                 .orElseThrow(() -> new NotFoundException("Password not found"));
+        return toResponseDto(pw, dataKeys.find(userId));
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PASSWORD_METADATA, key = "#userId")
+    public PasswordResponseDto updatePassword(Long userId, Long passwordId, PasswordWriteDto updateDto) {
+        byte[] envelope = seal(dataKeys.getOrCreate(userId), updateDto.getPassword());
+        long changeVersion = nextVaultVersion(userId);
+        int updated = passwordRepository.updateByIdAndUserId(passwordId, userId,
+                updateDto.getService(), updateDto.getCredential(), envelope, Instant.now(), changeVersion);
+        if (updated == 0) {
+            throw new NotFoundException("Password not found");
+        }
+        return PasswordResponseDto.builder()
+                .id(passwordId)
+                .service(updateDto.getService())
+                .credential(updateDto.getCredential())
+                .password(updateDto.getPassword())
+                .build();
+    }
+
+    @Override
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PASSWORD_METADATA, key = "#userId")
+    public void deletePassword(Long userId, Long passwordId) {
+        long changeVersion = nextVaultVersion(userId);
+        if (passwordRepository.deleteByIdAndUserId(passwordId, userId) == 0) {
+            throw new NotFoundException("Password not found");
+        }
+        tombstoneRepository.insert(passwordId, userId, changeVersion, Instant.now());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getVaultVersion(Long userId) {
+        return userRepository.findVaultVersion(userId)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+    }
+
+    // The bump holds the row lock on the user until commit, so a vault's versions become visible in
+    // order and a change feed read up to version N can never miss a later commit at or below N.
+    // Subscribers hear about the version only once it has committed, so their sync sees the write.
+    private long nextVaultVersion(Long userId) {
+        userRepository.bumpVaultVersion(userId);
+        long version = getVaultVersion(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    vaultEvents.publish(userId, version);
+                }
+            });
+        } else {
+            vaultEvents.publish(userId, version);
+        }
+        return version;
+    }
+
+    private PasswordResponseDto toResponseDto(Password pw, SecretKey dataKey) {
         String decrypted;
         try {
-            decrypted = encryptionService.decrypt(pw.getCiphertext(), pw.getIv());
+            decrypted = decrypt(pw.getId(), pw.getEnvelope(), pw.getCiphertext(), pw.getIv(), dataKey);
         } catch (GeneralSecurityException e) {
             throw new CryptoException("Failed to decrypt password", e);
         }
@@ -111,48 +294,105 @@ public class PasswordServiceImpl implements PasswordService {
                 .build();
     }
 
-    @Override
-    @Transactional
-    // @CacheEvict(cacheNames = "passwords", key = "#userId")
-    public PasswordResponseDto updatePassword(Long userId, Long passwordId, PasswordWriteDto updateDto) {
-        Password pw = passwordRepository.findByIdAndUser(passwordId,
-                        userRepository.findById(userId)
-                                .orElseThrow(() -> new NotFoundException("User not found")))
-                .orElseThrow(() -> new NotFoundException("Password not found"));
-        PasswordEncryptionService.EncryptedData data;
+    private byte[] seal(SecretKey dataKey, String plaintext) {
         try {
-            data = encryptionService.encrypt(updateDto.getPassword());
+            return encryptionService.seal(plaintext, dataKey);
         } catch (GeneralSecurityException e) {
             throw new CryptoException("Failed to encrypt password", e);
         }
-        pw.setService(updateDto.getService());
-        pw.setCredential(updateDto.getCredential());
-        pw.setCiphertext(data.ciphertext());
-        pw.setIv(data.iv());
-        Password updated = passwordRepository.save(pw);
+    }
+
+    private PasswordResponseDto toResponseDto(PasswordExportView row, SecretKey dataKey) {
         String decrypted;
         try {
-            decrypted = encryptionService.decrypt(updated.getCiphertext(), updated.getIv());
+            decrypted = decrypt(row.getId(), row.getEnvelope(), row.getCiphertext(), row.getIv(), dataKey);
         } catch (GeneralSecurityException e) {
-            throw new CryptoException("Failed to decrypt password after update", e);
+            throw new CryptoException("Failed to decrypt password", e);
         }
         return PasswordResponseDto.builder()
-                .id(updated.getId())
-                .service(updated.getService())
-                .credential(updated.getCredential())
+                .id(row.getId())
+                .service(row.getService())
+                .credential(row.getCredential())
                 .password(decrypted)
                 .build();
     }
 
-    @Override
-    @Transactional
-    // @CacheEvict(cacheNames = "passwords", key = "#userId")
-    public void deletePassword(Long userId, Long passwordId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User not found"));
-        if (!passwordRepository.existsByIdAndUser(passwordId, user)) {
-            throw new NotFoundException("Password not found");
+    private String decrypt(Long id, byte[] envelope, String ciphertext, String iv, SecretKey dataKey)
+            throws GeneralSecurityException {
+        if (envelope != null) {
+            return encryptionService.open(envelope, dataKey);
+        }
+        envelopeMigrationJob.enqueue(id);
+        return encryptionService.decrypt(ciphertext, iv);
+    }
+
+    static String rejectionReason(PasswordWriteDto entry) {
+        if (entry == null) {
+            return "entry must not be null";
+        }
+        if (!StringUtils.hasText(entry.getService())) {
+            return "service must not be blank";
+        }
+        if (!StringUtils.hasText(entry.getCredential())) {
+            return "credential must not be blank";
+        }
+        if (!StringUtils.hasText(entry.getPassword())) {
+            return "password must not be blank";
+        }
+        return null;
+    }
+
+    private static CursorPageDto<PasswordMetadataDto> metadataPage(List<PasswordMetadataView> rows, int limit) {
+        boolean hasMore = rows.size() > limit;
+        List<PasswordMetadataView> page = hasMore ? rows.subList(0, limit) : rows;
+        List<PasswordMetadataDto> items = page.stream()
+                .map(PasswordServiceImpl::toMetadataDto)
+                .collect(Collectors.toList());
+        return CursorPageDto.<PasswordMetadataDto>builder()
+                .items(items)
+                .nextCursor(hasMore ? PageCursor.encode(page.get(page.size() - 1).getId()) : null)
+                .build();
+    }
+
+    static PasswordChangesDto changes(SyncToken.Window<?> window, List<PasswordResponseDto> upserts) {
+        return PasswordChangesDto.builder()
+                .upserts(upserts)
+                .deletedIds(window.deletedIds())
+                .syncToken(window.next().encode())
+                .hasMore(window.hasMore())
+                .build();
+    }
+
+    static PasswordMetadataDto toMetadataDto(PasswordMetadataView view) {
+        return PasswordMetadataDto.builder()
+                .id(view.getId())
+                .service(view.getService())
+                .credential(view.getCredential())
+                .createdAt(view.getCreatedAt())
+                .updatedAt(view.getUpdatedAt())
+                .build();
+    }
+
+    // Lower-cased LIKE pattern with the user's own % and _ escaped, matched against lower(service)
+    // and lower(credential) so the functional trigram index applies.
+    static String searchPattern(String query, boolean prefix) {
+        if (!StringUtils.hasText(query)) {
+            throw new BadRequestException("q must not be blank");
+        }
+        String trimmed = query.trim();
+        if (trimmed.length() > MAX_QUERY_LENGTH) {
+            throw new BadRequestException("q must be at most " + MAX_QUERY_LENGTH + " characters");
+        }
+        String escaped = trimmed.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return (prefix ? "" : "%") + escaped + "%";
+    }
+
+    static void requireValidLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
         }
-        passwordRepository.deleteByIdAndUser(passwordId, user);
     }
 }
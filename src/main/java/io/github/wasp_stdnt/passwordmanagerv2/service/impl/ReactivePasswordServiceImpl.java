@@ -0,0 +1,359 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
+
+import io.github.wasp_stdnt.passwordmanagerv2.config.CacheConfig;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportItemDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordWriteDto;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.BadRequestException;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.CryptoException;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.NotFoundException;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordRow;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.ReactivePasswordRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.ReactivePasswordRepository.NewPassword;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.ReactiveUserRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.service.PasswordService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.ReactivePasswordService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.DataKeyService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import javax.crypto.SecretKey;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+// Database calls stay on the R2DBC event loop; every encrypt/decrypt hops to the bounded crypto scheduler.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePasswordServiceImpl implements ReactivePasswordService {
+    private final ReactivePasswordRepository passwordRepository;
+    private final ReactiveUserRepository userRepository;
+    private final PasswordEncryptionService encryptionService;
+    private final DataKeyService dataKeys;
+    private final EnvelopeMigrationJob envelopeMigrationJob;
+    private final VaultEventBus vaultEvents;
+    private final Cache metadataCache;
+    private final Scheduler cryptoScheduler;
+
+    public ReactivePasswordServiceImpl(ReactivePasswordRepository passwordRepository,
+                                       ReactiveUserRepository userRepository,
+                                       PasswordEncryptionService encryptionService,
+                                       DataKeyService dataKeys,
+                                       EnvelopeMigrationJob envelopeMigrationJob,
+                                       VaultEventBus vaultEvents,
+                                       CacheManager cacheManager,
+                                       @Qualifier("cryptoScheduler") Scheduler cryptoScheduler) {
+        this.passwordRepository = passwordRepository;
+        this.userRepository = userRepository;
+        this.encryptionService = encryptionService;
+        this.dataKeys = dataKeys;
+        this.envelopeMigrationJob = envelopeMigrationJob;
+        this.vaultEvents = vaultEvents;
+        this.metadataCache = cacheManager.getCache(CacheConfig.PASSWORD_METADATA);
+        this.cryptoScheduler = cryptoScheduler;
+    }
+
+    @Override
+    public Mono<PasswordResponseDto> createPassword(Long userId, PasswordWriteDto createDto) {
+        return getOrCreateDataKey(userId)
+                .flatMap(dataKey -> seal(dataKey, createDto.getPassword()))
+                .flatMap(envelope -> versionedWrite(userId, version ->
+                        passwordRepository.insert(userId, version, createDto.getService(),
+                                createDto.getCredential(), envelope)))
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found")))
+                .map(id -> PasswordResponseDto.builder()
+                        .id(id)
+                        .service(createDto.getService())
+                        .credential(createDto.getCredential())
+                        .password(createDto.getPassword())
+                        .build());
+    }
+
+    @Override
+    public Mono<PasswordImportResultDto> importPasswords(Long userId, List<PasswordWriteDto> entries) {
+        if (entries == null || entries.isEmpty()) {
+            return Mono.error(new BadRequestException("At least one entry is required"));
+        }
+        if (entries.size() > PasswordService.MAX_IMPORT_SIZE) {
+            return Mono.error(new BadRequestException(
+                    "At most " + PasswordService.MAX_IMPORT_SIZE + " entries can be imported at once"));
+        }
+        PasswordImportItemDto[] results = new PasswordImportItemDto[entries.size()];
+        List<Integer> accepted = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            String error = PasswordServiceImpl.rejectionReason(entries.get(i));
+            if (error == null) {
+                accepted.add(i);
+            } else {
+                results[i] = PasswordImportItemDto.builder().index(i).error(error).build();
+            }
+        }
+        Mono<SecretKey> dataKey = accepted.isEmpty() ? Mono.empty() : getOrCreateDataKey(userId);
+        return dataKey
+                .flatMapMany(key -> Flux.fromIterable(accepted)
+                        .flatMapSequential(i -> seal(key, entries.get(i).getPassword())
+                                .map(envelope -> new NewPassword(entries.get(i).getService(),
+                                        entries.get(i).getCredential(), envelope))))
+                .collectList()
+                .flatMap(rows -> rows.isEmpty()
+                        ? Mono.just(List.<Long>of())
+                        : versionedWrite(userId, version ->
+                                        passwordRepository.insertAll(userId, version, rows).collectList())
+                                .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found"))))
+                .map(ids -> {
+                    for (int n = 0; n < accepted.size(); n++) {
+                        int index = accepted.get(n);
+                        results[index] = PasswordImportItemDto.builder().index(index).id(ids.get(n)).build();
+                    }
+                    return PasswordImportResultDto.builder()
+                            .imported(ids.size())
+                            .rejected(entries.size() - ids.size())
+                            .items(Arrays.asList(results))
+                            .build();
+                });
+    }
+
+    @Override
+    public Flux<PasswordResponseDto> listPasswords(Long userId) {
+        return findDataKey(userId)
+                .flatMapMany(dataKey -> passwordRepository.findAllByUserId(userId)
+                        .publishOn(cryptoScheduler)
+                        .map(row -> toResponseDto(row, dataKey.orElse(null))));
+    }
+
+    @Override
+    public Flux<PasswordResponseDto> exportPasswords(Long userId) {
+        return findDataKey(userId)
+                .flatMapMany(dataKey -> passwordRepository.streamExportByUserId(userId)
+                        .publishOn(cryptoScheduler)
+                        .map(row -> toResponseDto(row, dataKey.orElse(null))));
+    }
+
+    @Override
+    public Mono<CursorPageDto<PasswordResponseDto>> listPasswordPage(Long userId, String cursor, int limit) {
+        return Mono.defer(() -> {
+            PasswordServiceImpl.requireValidLimit(limit);
+            long afterId = PageCursor.decode(cursor);
+            // The extra row only tells whether there is a next page; it is not decrypted.
+            return passwordRepository.findPageByUserId(userId, afterId, limit + 1)
+                    .collectList()
+                    .map(rows -> page(rows, limit, PasswordRow::getId))
+                    .flatMap(page -> (page.getItems().isEmpty()
+                            ? Mono.just(List.<PasswordResponseDto>of())
+                            : findDataKey(userId).flatMap(dataKey -> Flux.fromIterable(page.getItems())
+                                    .publishOn(cryptoScheduler)
+                                    .map(row -> toResponseDto(row, dataKey.orElse(null)))
+                                    .collectList()))
+                            .map(items -> CursorPageDto.<PasswordResponseDto>builder()
+                                    .items(items)
+                                    .nextCursor(page.getNextCursor())
+                                    .build()));
+        });
+    }
+
+    @Override
+    public Mono<CursorPageDto<PasswordMetadataDto>> listPasswordMetadata(Long userId, String cursor, int limit) {
+        return Mono.defer(() -> {
+            PasswordServiceImpl.requireValidLimit(limit);
+            long afterId = PageCursor.decode(cursor);
+            return passwordRepository.findMetadataPageByUserId(userId, afterId, limit + 1)
+                    .map(PasswordServiceImpl::toMetadataDto)
+                    .collectList()
+                    .map(rows -> page(rows, limit, PasswordMetadataDto::getId));
+        });
+    }
+
+    @Override
+    public Mono<PasswordChangesDto> listChanges(Long userId, String since, int limit) {
+        return Mono.defer(() -> {
+            PasswordServiceImpl.requireValidLimit(limit);
+            return getVaultVersion(userId).flatMap(vaultVersion -> {
+                SyncToken from = SyncToken.decode(since, vaultVersion);
+                SyncToken tombstonesFrom = from.tombstoneStart();
+                return Mono.zip(
+                                passwordRepository.findChangedPage(userId, from.version(), from.afterId(),
+                                        vaultVersion, limit + 1).collectList(),
+                                passwordRepository.findTombstonePage(userId, tombstonesFrom.version(),
+                                        tombstonesFrom.afterId(), vaultVersion, limit + 1).collectList())
+                        .map(rows -> from.window(vaultVersion, limit, rows.getT1(), PasswordRow::getChangeVersion,
+                                PasswordRow::getId, rows.getT2()))
+                        .flatMap(window -> (window.upserts().isEmpty()
+                                ? Mono.just(List.<PasswordResponseDto>of())
+                                : findDataKey(userId).flatMap(dataKey -> Flux.fromIterable(window.upserts())
+                                        .publishOn(cryptoScheduler)
+                                        .map(row -> toResponseDto(row, dataKey.orElse(null)))
+                                        .collectList()))
+                                .map(items -> PasswordServiceImpl.changes(window, items)));
+            });
+        });
+    }
+
+    @Override
+    public Mono<CursorPageDto<PasswordMetadataDto>> searchPasswordMetadata(Long userId, String query, boolean prefix,
+                                                                           String cursor, int limit) {
+        return Mono.defer(() -> {
+            PasswordServiceImpl.requireValidLimit(limit);
+            String pattern = PasswordServiceImpl.searchPattern(query, prefix);
+            long afterId = PageCursor.decode(cursor);
+            return passwordRepository.searchMetadataPageByUserId(userId, pattern, afterId, limit + 1)
+                    .map(PasswordServiceImpl::toMetadataDto)
+                    .collectList()
+                    .map(rows -> page(rows, limit, PasswordMetadataDto::getId));
+        });
+    }
+
+    @Override
+    public Mono<PasswordResponseDto> getPassword(Long userId, Long passwordId) {
+        return passwordRepository.findByIdAndUserId(passwordId, userId)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("Password not found")))
+                .zipWith(findDataKey(userId))
+                .publishOn(cryptoScheduler)
+                .map(rowAndKey -> toResponseDto(rowAndKey.getT1(), rowAndKey.getT2().orElse(null)));
+    }
+
+    @Override
+    public Mono<PasswordResponseDto> updatePassword(Long userId, Long passwordId, PasswordWriteDto updateDto) {
+        return getOrCreateDataKey(userId)
+                .flatMap(dataKey -> seal(dataKey, updateDto.getPassword()))
+                .flatMap(envelope -> versionedWrite(userId, version ->
+                        passwordRepository.updateByIdAndUserId(passwordId, userId, version,
+                                        updateDto.getService(), updateDto.getCredential(), envelope)
+                                .flatMap(updated -> updated == 0
+                                        ? Mono.error(new NotFoundException("Password not found"))
+                                        : Mono.just(updated))))
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found")))
+                .map(updated -> PasswordResponseDto.builder()
+                        .id(passwordId)
+                        .service(updateDto.getService())
+                        .credential(updateDto.getCredential())
+                        .password(updateDto.getPassword())
+                        .build());
+    }
+
+    @Override
+    public Mono<Void> deletePassword(Long userId, Long passwordId) {
+        return versionedWrite(userId, version ->
+                        passwordRepository.deleteByIdAndUserId(passwordId, userId, version)
+                                .flatMap(deleted -> deleted == 0
+                                        ? Mono.error(new NotFoundException("Password not found"))
+                                        : Mono.just(deleted)))
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found")))
+                .then();
+    }
+
+    @Override
+    public Mono<Long> getVaultVersion(Long userId) {
+        return userRepository.findVaultVersion(userId)
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found")));
+    }
+
+    // Runs write in the transaction that bumps the vault version. The result arrives only after the
+    // commit, so subscribers that sync on the event see the write. The metadata first page the servlet
+    // stack caches is evicted here too, on every node through the cache's invalidation bus.
+    private <T> Mono<T> versionedWrite(Long userId, Function<Long, Mono<T>> write) {
+        return userRepository.withNextVaultVersion(userId, version -> write.apply(version)
+                        .map(result -> Tuples.of(version, result)))
+                .doOnNext(written -> {
+                    metadataCache.evict(userId);
+                    vaultEvents.publish(userId, written.getT1());
+                })
+                .map(Tuple2::getT2);
+    }
+
+    // Same cache as the servlet stack; misses are loaded over R2DBC and unwrapped on the crypto scheduler.
+    private Mono<Optional<SecretKey>> findDataKey(Long userId) {
+        SecretKey cached = dataKeys.cached(userId);
+        if (cached != null) {
+            return Mono.just(Optional.of(cached));
+        }
+        return userRepository.findWrappedDataKey(userId)
+                .defaultIfEmpty(Optional.empty())
+                .publishOn(cryptoScheduler)
+                .map(wrapped -> wrapped.map(bytes -> dataKeys.remember(userId, bytes)));
+    }
+
+    private Mono<SecretKey> getOrCreateDataKey(Long userId) {
+        return findDataKey(userId).flatMap(existing -> existing
+                .map(Mono::just)
+                .orElseGet(() -> createDataKey(userId)));
+    }
+
+    // Statements auto-commit here, so the key is durable by the time it is cached.
+    private Mono<SecretKey> createDataKey(Long userId) {
+        return Mono.fromCallable(() -> {
+                    SecretKey key = encryptionService.newDataKey();
+                    return new NewDataKey(key, dataKeys.wrap(key));
+                })
+                .subscribeOn(cryptoScheduler)
+                .flatMap(created -> userRepository.setWrappedDataKeyIfAbsent(userId, created.wrapped())
+                        .flatMap(updated -> {
+                            if (updated > 0) {
+                                dataKeys.remember(userId, created.key());
+                                return Mono.just(created.key());
+                            }
+                            return userRepository.findWrappedDataKey(userId)
+                                    .flatMap(Mono::justOrEmpty)
+                                    .publishOn(cryptoScheduler)
+                                    .map(wrapped -> dataKeys.remember(userId, wrapped));
+                        }))
+                .switchIfEmpty(Mono.error(() -> new NotFoundException("User not found")));
+    }
+
+    private Mono<byte[]> seal(SecretKey dataKey, String plaintext) {
+        return Mono.fromCallable(() -> {
+            try {
+                return encryptionService.seal(plaintext, dataKey);
+            } catch (GeneralSecurityException e) {
+                throw new CryptoException("Failed to encrypt password", e);
+            }
+        }).subscribeOn(cryptoScheduler);
+    }
+
+    private PasswordResponseDto toResponseDto(PasswordRow row, SecretKey dataKey) {
+        String decrypted;
+        try {
+            if (row.getEnvelope() != null) {
+                decrypted = encryptionService.open(row.getEnvelope(), dataKey);
+            } else {
+                envelopeMigrationJob.enqueue(row.getId());
+                decrypted = encryptionService.decrypt(row.getCiphertext(), row.getIv());
+            }
+        } catch (GeneralSecurityException e) {
+            throw new CryptoException("Failed to decrypt password", e);
+        }
+        return PasswordResponseDto.builder()
+                .id(row.getId())
+                .service(row.getService())
+                .credential(row.getCredential())
+                .password(decrypted)
+                .build();
+    }
+
+    private static <T> CursorPageDto<T> page(List<T> rows, int limit, Function<T, Long> id) {
+        boolean hasMore = rows.size() > limit;
+        List<T> page = hasMore ? rows.subList(0, limit) : rows;
+        return CursorPageDto.<T>builder()
+                .items(page)
+                .nextCursor(hasMore ? PageCursor.encode(id.apply(page.get(page.size() - 1))) : null)
+                .build();
+    }
+
+    private record NewDataKey(SecretKey key, byte[] wrapped) {}
+}
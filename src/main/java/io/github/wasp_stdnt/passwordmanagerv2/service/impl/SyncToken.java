@@ -0,0 +1,93 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
+
+import io.github.wasp_stdnt.passwordmanagerv2.exception.BadRequestException;
+import io.github.wasp_stdnt.passwordmanagerv2.model.PasswordTombstone;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+// A position in a vault's change feed, which orders upserts and tombstones together by (change version, id).
+// Every change at or before (version, afterId) has been delivered. Tombstones at or below floor are never
+// sent: an initial sync starts from a full listing taken at that version, which already lacks them.
+record SyncToken(long version, long afterId, long floor) {
+    private static final String PREFIX = "s1:";
+
+    static SyncToken decode(String token, long vaultVersion) {
+        if (token == null || token.isBlank()) {
+            return new SyncToken(-1, Long.MAX_VALUE, vaultVersion);
+        }
+        SyncToken decoded;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new BadRequestException("Invalid sync token");
+            }
+            String[] parts = raw.substring(PREFIX.length()).split(":");
+            if (parts.length != 3) {
+                throw new BadRequestException("Invalid sync token");
+            }
+            decoded = new SyncToken(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid sync token", e);
+        }
+        if (decoded.version() < -1 || decoded.afterId() < 0) {
+            throw new BadRequestException("Invalid sync token");
+        }
+        if (decoded.version() > vaultVersion) {
+            throw new BadRequestException("Sync token is ahead of the vault; sync again without it");
+        }
+        return decoded;
+    }
+
+    String encode() {
+        byte[] raw = (PREFIX + version + ":" + afterId + ":" + floor).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    // Where the tombstone scan starts: this position, or past the floor if that is later.
+    SyncToken tombstoneStart() {
+        return floor >= version ? new SyncToken(floor, Long.MAX_VALUE, floor) : this;
+    }
+
+    // Merges up to limit + 1 upserts and tombstones, each in feed order, and keeps the first limit changes.
+    <T> Window<T> window(long vaultVersion, int limit, List<T> upserts, ToLongFunction<T> upsertVersion,
+                         ToLongFunction<T> upsertId, List<PasswordTombstone> tombstones) {
+        List<T> changed = new ArrayList<>();
+        List<Long> deletedIds = new ArrayList<>();
+        int u = 0;
+        int t = 0;
+        long lastVersion = version;
+        long lastId = afterId;
+        while (u + t < limit && (u < upserts.size() || t < tombstones.size())) {
+            boolean upsertFirst = t == tombstones.size() || u < upserts.size()
+                    && compare(upsertVersion.applyAsLong(upserts.get(u)), upsertId.applyAsLong(upserts.get(u)),
+                    tombstones.get(t).getChangeVersion(), tombstones.get(t).getPasswordId()) < 0;
+            if (upsertFirst) {
+                T row = upserts.get(u++);
+                changed.add(row);
+                lastVersion = upsertVersion.applyAsLong(row);
+                lastId = upsertId.applyAsLong(row);
+            } else {
+                PasswordTombstone tombstone = tombstones.get(t++);
+                deletedIds.add(tombstone.getPasswordId());
+                lastVersion = tombstone.getChangeVersion();
+                lastId = tombstone.getPasswordId();
+            }
+        }
+        boolean hasMore = u < upserts.size() || t < tombstones.size();
+        SyncToken next = hasMore
+                ? new SyncToken(lastVersion, lastId, floor)
+                : new SyncToken(vaultVersion, Long.MAX_VALUE, floor);
+        return new Window<>(changed, deletedIds, next, hasMore);
+    }
+
+    private static int compare(long version, long id, long otherVersion, long otherId) {
+        int byVersion = Long.compare(version, otherVersion);
+        return byVersion != 0 ? byVersion : Long.compare(id, otherId);
+    }
+
+    record Window<T>(List<T> upserts, List<Long> deletedIds, SyncToken next, boolean hasMore) {}
+}
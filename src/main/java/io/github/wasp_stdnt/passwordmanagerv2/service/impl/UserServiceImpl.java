@@ -1,14 +1,19 @@
 package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
 
+import io.github.wasp_stdnt.passwordmanagerv2.config.CacheConfig;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.UserRegistrationDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.UserResponseDto;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.ConflictException;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.NotFoundException;
 import io.github.wasp_stdnt.passwordmanagerv2.model.User;
 import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.security.UserIdCache;
 import io.github.wasp_stdnt.passwordmanagerv2.service.UserService;
 import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordHashService;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,24 +21,39 @@ import org.springframework.transaction.annotation.Transactional;
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
     private final PasswordHashService passwordHashService;
+    private final UserIdCache userIdCache;
+    private final VaultEventBus vaultEvents;
 
     public UserServiceImpl(UserRepository userRepository,
-                           PasswordHashService passwordHashService) {
+                           PasswordHashService passwordHashService,
+                           UserIdCache userIdCache,
+                           VaultEventBus vaultEvents) {
         this.userRepository = userRepository;
         this.passwordHashService = passwordHashService;
+        this.userIdCache = userIdCache;
+        this.vaultEvents = vaultEvents;
     }
 
+    // Not transactional: the hash is computed before any connection is taken for the insert,
+    // and the unique email constraint settles a race between two registrations.
     @Override
-    @Transactional
     public UserResponseDto register(UserRegistrationDto registrationDto) {
         if (userRepository.findByEmail(registrationDto.getEmail()).isPresent()) {
             throw new ConflictException("Email already in use");
         }
+        String passwordHash = passwordHashService.hashPassword(registrationDto.getPassword());
         User user = new User();
         user.setName(registrationDto.getName());
         user.setEmail(registrationDto.getEmail());
-        user.setPasswordHash(passwordHashService.hashPassword(registrationDto.getPassword()));
-        User saved = userRepository.save(user);
+        user.setPasswordHash(passwordHash);
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Email already in use", e);
+        }
+        // The insert has committed; announcing it keeps the new user's first reads off replicas that lack the row.
+        vaultEvents.publish(saved.getId(), saved.getVaultVersion());
         return UserResponseDto.builder()
                 .id(saved.getId())
                 .name(saved.getName())
@@ -54,10 +74,12 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = CacheConfig.PASSWORD_METADATA, key = "#userId")
     public void deleteUser(Long userId) {
         if (!userRepository.existsById(userId)) {
             throw new NotFoundException("User not found");
         }
         userRepository.deleteById(userId);
+        userIdCache.evictUserId(userId);
     }
 }
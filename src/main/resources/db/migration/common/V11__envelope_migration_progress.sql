@@ -0,0 +1,6 @@
+create table envelope_migration_progress (
+    scan varchar(32) not null,
+    last_id bigint not null,
+    completed_at timestamp(6) with time zone,
+    primary key (scan)
+);
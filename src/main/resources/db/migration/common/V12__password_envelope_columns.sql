@@ -0,0 +1,12 @@
+-- Columns added while ddl-auto=update still owned the schema, so a baselined database may or may
+-- not have them already. Legacy rows keep ciphertext/iv until EnvelopeMigrationJob moves them into
+-- the envelope.
+alter table passwords add column if not exists envelope bytea;
+alter table passwords add column if not exists created_at timestamp(6) with time zone;
+alter table passwords add column if not exists updated_at timestamp(6) with time zone;
+alter table passwords alter column ciphertext drop not null;
+alter table passwords alter column iv drop not null;
+
+-- Ids now come from a pooled sequence; postgresql/V3 has already created it there and moved it past
+-- the ids the identity column handed out.
+create sequence if not exists passwords_seq start with 1 increment by 50;
@@ -0,0 +1,22 @@
+-- Schema as Hibernate generated it under ddl-auto=update before the envelope format, i.e. what an
+-- existing database has when it is baselined at this version instead of running it
+-- (spring.flyway.baseline-on-migrate). Later migrations must therefore bring both kinds of database
+-- forward, and tolerate databases that ddl-auto=update already changed further.
+create table users (
+    id bigint generated by default as identity,
+    email varchar(255) not null unique,
+    name varchar(255),
+    password_hash varchar(255) not null,
+    primary key (id)
+);
+
+create table passwords (
+    id bigint generated by default as identity,
+    user_id bigint not null,
+    service TEXT,
+    credential TEXT not null,
+    ciphertext TEXT not null,
+    iv TEXT not null,
+    primary key (id),
+    constraint fk_passwords_user foreign key (user_id) references users
+);
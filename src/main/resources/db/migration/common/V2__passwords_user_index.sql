@@ -0,0 +1,2 @@
+-- Every password query filters on user_id and pages by id; PostgreSQL does not index foreign keys itself.
+create index if not exists idx_passwords_user_id_id on passwords (user_id, id);
@@ -0,0 +1,8 @@
+create table key_rotation_progress (
+    key_id integer not null,
+    last_id bigint not null,
+    rotated bigint not null,
+    started_at timestamp(6) with time zone,
+    completed_at timestamp(6) with time zone,
+    primary key (key_id)
+);
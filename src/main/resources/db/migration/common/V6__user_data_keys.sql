@@ -0,0 +1,2 @@
+-- Per-user data key, wrapped by a master key (a version 2 envelope). Null until the user's first write.
+alter table users add column wrapped_dek bytea;
@@ -0,0 +1,2 @@
+-- Bumped with every create/update/delete of the user's entries; served as the ETag of vault listings.
+alter table users add column vault_version bigint default 0 not null;
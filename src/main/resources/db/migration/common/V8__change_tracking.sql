@@ -0,0 +1,14 @@
+-- Vault version of each entry's last create/update, and of each delete; GET /api/passwords/changes
+-- reads both in (change_version, id) order, so a sync touches only what changed since its token.
+alter table passwords add column change_version bigint default 0 not null;
+create index if not exists idx_passwords_user_change on passwords (user_id, change_version, id);
+
+create table password_tombstones (
+    password_id bigint not null,
+    user_id bigint not null,
+    change_version bigint not null,
+    deleted_at timestamp(6) with time zone,
+    primary key (password_id),
+    constraint fk_password_tombstones_user foreign key (user_id) references users on delete cascade
+);
+create index if not exists idx_password_tombstones_user_change on password_tombstones (user_id, change_version, password_id);
@@ -0,0 +1,9 @@
+-- Advanced on the primary every app.datasource.replicas.check-interval; a replica's copy of beat_at says
+-- how far it has replayed. See ReplicaRoutingDataSource.
+create table replication_heartbeat (
+    id int not null,
+    beat_at timestamp(6) with time zone not null,
+    primary key (id)
+);
+
+insert into replication_heartbeat (id, beat_at) values (1, current_timestamp);
@@ -0,0 +1,4 @@
+-- H2 counterpart of ux_users_email_lower (postgresql/V4). H2 cannot index an expression, so the
+-- lowered email is a generated column with a unique constraint; findByEmail relies on it being unique.
+ALTER TABLE users ADD COLUMN email_lower VARCHAR(255) GENERATED ALWAYS AS (LOWER(email));
+ALTER TABLE users ADD CONSTRAINT ux_users_email_lower UNIQUE (email_lower);
@@ -0,0 +1,9 @@
+-- Formerly schema-postgresql.sql. Databases created by V1 or baselined from ddl-auto have the
+-- pre-envelope NOT NULL columns and the old identity-based ids.
+ALTER TABLE passwords ALTER COLUMN ciphertext DROP NOT NULL;
+ALTER TABLE passwords ALTER COLUMN iv DROP NOT NULL;
+
+-- Keep the sequence ahead of every id already handed out by the identity column.
+CREATE SEQUENCE IF NOT EXISTS passwords_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('passwords_seq', GREATEST((SELECT last_value FROM passwords_seq),
+                                        (SELECT COALESCE(MAX(id), 0) + 50 FROM passwords)));
@@ -0,0 +1,12 @@
+-- Search matches lower(service) / lower(credential) with LIKE inside one user's vault.
+-- Trigram GIN serves substring patterns; btree_gin lets the same index filter on user_id.
+-- The text_pattern_ops btree serves short prefix patterns (autocomplete) that yield no trigrams.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS btree_gin;
+CREATE INDEX IF NOT EXISTS idx_passwords_search_trgm
+    ON passwords USING gin (user_id, lower(service) gin_trgm_ops, lower(credential) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_passwords_service_prefix
+    ON passwords (user_id, lower(service) text_pattern_ops);
+
+-- Emails are looked up as lower(email); this also stops Alice@x and alice@x registering twice.
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_email_lower ON users (lower(email));
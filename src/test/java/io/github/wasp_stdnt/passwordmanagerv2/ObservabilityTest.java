@@ -0,0 +1,65 @@
+package io.github.wasp_stdnt.passwordmanagerv2;
+
+import io.github.wasp_stdnt.passwordmanagerv2.config.SecurityConfig;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordHashService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.jwt;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("test")
+class ObservabilityTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private PasswordEncryptionService encryptionService;
+    @Autowired private PasswordHashService hashService;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void prometheusEndpointExposesHotPathTimers() throws Exception {
+        encryptionService.open(encryptionService.seal("probe"));
+        hashService.matches("probe", hashService.hashPassword("probe"));
+        userRepository.findByEmail("nobody@example.com");
+
+        mockMvc.perform(get("/actuator/prometheus")
+                        .with(jwt().authorities(new SimpleGrantedAuthority(SecurityConfig.METRICS_AUTHORITY))))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("crypto_encrypt_seconds_bucket")))
+                .andExpect(content().string(containsString("crypto_decrypt_seconds_count")))
+                .andExpect(content().string(containsString("crypto_bcrypt_seconds_count")))
+                .andExpect(content().string(containsString("spring_data_repository_invocations_seconds_count")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("cache=\"userIdCache\"")));
+    }
+
+    @Test
+    void prometheusEndpointRequiresTheMetricsScope() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(jwt()))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void healthIncludesLatencyAndCryptoChecks() throws Exception {
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+}
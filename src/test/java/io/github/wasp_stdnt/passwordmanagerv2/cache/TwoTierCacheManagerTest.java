@@ -0,0 +1,103 @@
+package io.github.wasp_stdnt.passwordmanagerv2.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class TwoTierCacheManagerTest {
+
+    private ConcurrentMapCacheManager shared;
+    private TwoTierCacheManager nodeA;
+    private TwoTierCacheManager nodeB;
+
+    @BeforeEach
+    void setUp() {
+        shared = new ConcurrentMapCacheManager();
+        LocalCacheInvalidationBus bus = new LocalCacheInvalidationBus();
+        nodeA = new TwoTierCacheManager(100, Duration.ofMinutes(1), shared, bus);
+        nodeB = new TwoTierCacheManager(100, Duration.ofMinutes(1), shared, bus);
+    }
+
+    @Test
+    void readOnOtherNodeIsServedFromSharedTierAndKeptLocally() {
+        nodeA.getCache("meta").put(1L, "page-1");
+
+        assertThat(nodeB.getCache("meta").get(1L).get()).isEqualTo("page-1");
+        shared.getCache("meta").evict(1L);
+        assertThat(nodeB.getCache("meta").get(1L).get()).isEqualTo("page-1");
+    }
+
+    @Test
+    void evictOnOneNodeInvalidatesLocalCopiesEverywhere() {
+        nodeA.getCache("meta").put(1L, "page-1");
+        nodeB.getCache("meta").get(1L);
+
+        nodeA.getCache("meta").evict(1L);
+
+        assertThat(nodeB.getCache("meta").get(1L)).isNull();
+        assertThat(shared.getCache("meta").get(1L)).isNull();
+    }
+
+    @Test
+    void clearOnOneNodeInvalidatesEverywhere() {
+        nodeA.getCache("meta").put(1L, "page-1");
+        nodeB.getCache("meta").get(1L);
+
+        nodeB.getCache("meta").clear();
+
+        assertThat(nodeA.getCache("meta").get(1L)).isNull();
+        assertThat(nodeB.getCache("meta").get(1L)).isNull();
+    }
+
+    @Test
+    void worksWithoutSharedTier() {
+        TwoTierCacheManager localOnly = new TwoTierCacheManager(100, Duration.ofMinutes(1), null,
+                new LocalCacheInvalidationBus());
+        Cache cache = localOnly.getCache("meta");
+
+        assertThat(cache.get(1L, () -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.get(1L, () -> "reloaded")).isEqualTo("loaded");
+        cache.evict(1L);
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    void redisBusDecodesInvalidationMessages() {
+        RedisCacheInvalidationBus bus = new RedisCacheInvalidationBus(mock(StringRedisTemplate.class));
+        List<String> received = new ArrayList<>();
+        bus.subscribe((cacheName, key) -> received.add(cacheName + "/" + key));
+
+        bus.onMessage(message(RedisCacheInvalidationBus.encode("meta", "42")), null);
+        bus.onMessage(message(RedisCacheInvalidationBus.encode("meta", null)), null);
+
+        assertThat(received).containsExactly("meta/42", "meta/null");
+    }
+
+    @Test
+    void redisBusPublishFailureDoesNotPropagate() {
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        doThrow(new IllegalStateException("redis down")).when(template).convertAndSend(anyString(), anyString());
+        RedisCacheInvalidationBus bus = new RedisCacheInvalidationBus(template);
+
+        bus.publish("meta", "42");
+
+        verify(template).convertAndSend(RedisCacheInvalidationBus.CHANNEL, "meta|42");
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisCacheInvalidationBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,304 @@
+package io.github.wasp_stdnt.passwordmanagerv2.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.github.wasp_stdnt.passwordmanagerv2.config.JacksonConfig;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportItemDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventHub;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.BadRequestException;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.GlobalExceptionHandler;
+import io.github.wasp_stdnt.passwordmanagerv2.security.CurrentUser;
+import io.github.wasp_stdnt.passwordmanagerv2.service.PasswordService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class PasswordControllerTest {
+
+    private static final Long USER_ID = 1L;
+
+    private MockMvc mockMvc;
+
+    @Mock
+    private PasswordService passwordService;
+
+    @BeforeEach
+    void setUp() {
+        PasswordController controller = new PasswordController(passwordService, new ObjectMapper(), mock(VaultEventHub.class));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(controller)
+                .setCustomArgumentResolvers(new FixedCurrentUserResolver())
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords/page → first page with default limit and a continuation token")
+    void listPasswordPage_defaultLimit() throws Exception {
+        PasswordResponseDto entry = PasswordResponseDto.builder()
+                .id(9L)
+                .service("Gmail")
+                .credential("alice@gmail.com")
+                .password("secret")
+                .build();
+        when(passwordService.listPasswordPage(USER_ID, null, PasswordService.DEFAULT_PAGE_SIZE))
+                .thenReturn(new CursorPageDto<>(List.of(entry), "next-token"));
+
+        mockMvc.perform(get("/api/passwords/page"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(9)))
+                .andExpect(jsonPath("$.items[0].service", is("Gmail")))
+                .andExpect(jsonPath("$.nextCursor", is("next-token")));
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords → weak ETag from the vault version")
+    void listPasswords_returnsVaultETag() throws Exception {
+        when(passwordService.getVaultVersion(USER_ID)).thenReturn(7L);
+        when(passwordService.listPasswords(USER_ID)).thenReturn(List.of());
+
+        mockMvc.perform(get("/api/passwords").header(HttpHeaders.IF_NONE_MATCH, "W/\"1-6\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1-7\""))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords with a current If-None-Match → 304 without reading the vault")
+    void listPasswords_notModified() throws Exception {
+        when(passwordService.getVaultVersion(USER_ID)).thenReturn(7L);
+
+        mockMvc.perform(get("/api/passwords").header(HttpHeaders.IF_NONE_MATCH, "W/\"1-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1-7\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andExpect(content().string(""));
+        verify(passwordService, never()).listPasswords(any());
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords with Accept: application/x-jackson-smile → Smile body under its own ETag")
+    void listPasswords_smile() throws Exception {
+        PasswordResponseDto entry = PasswordResponseDto.builder()
+                .id(9L).service("Gmail").credential("alice@gmail.com").password("secret").build();
+        when(passwordService.getVaultVersion(USER_ID)).thenReturn(7L);
+        when(passwordService.listPasswords(USER_ID)).thenReturn(List.of(entry));
+
+        MvcResult result = mockMvc.perform(get("/api/passwords")
+                        .accept(JacksonConfig.APPLICATION_SMILE)
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"1-7\""))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(JacksonConfig.APPLICATION_SMILE))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1-7-smile\""))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT))
+                .andReturn();
+
+        PasswordResponseDto[] decoded = new ObjectMapper(new SmileFactory())
+                .readValue(result.getResponse().getContentAsByteArray(), PasswordResponseDto[].class);
+        assertThat(decoded).containsExactly(entry);
+    }
+
+    @Test
+    @DisplayName("ETag format follows the Accept entry content negotiation would pick")
+    void prefersSmile_followsQualityAndWildcards() {
+        assertThat(PasswordController.prefersSmile(null)).isFalse();
+        assertThat(PasswordController.prefersSmile("*/*")).isFalse();
+        assertThat(PasswordController.prefersSmile("application/x-jackson-smile")).isTrue();
+        assertThat(PasswordController.prefersSmile("application/json, application/x-jackson-smile")).isFalse();
+        assertThat(PasswordController.prefersSmile("application/json;q=0.5, application/x-jackson-smile")).isTrue();
+        assertThat(PasswordController.prefersSmile("application/x-jackson-smile;q=0.1, */*;q=0.9")).isFalse();
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords with a malformed Accept header → JSON ETag, not a 500")
+    void listPasswords_malformedAccept() throws Exception {
+        assertThat(PasswordController.prefersSmile("application/x-jackson-smile;q=high")).isFalse();
+        assertThat(PasswordController.prefersSmile("smile")).isFalse();
+        when(passwordService.getVaultVersion(USER_ID)).thenReturn(7L);
+
+        mockMvc.perform(get("/api/passwords")
+                        .header(HttpHeaders.ACCEPT, "application/x-jackson-smile;q=high")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"1-7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"1-7\""));
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords/page with a bad cursor → 400 BAD_REQUEST")
+    void listPasswordPage_badCursor() throws Exception {
+        when(passwordService.listPasswordPage(USER_ID, "garbage", 10))
+                .thenThrow(new BadRequestException("Invalid cursor"));
+
+        mockMvc.perform(get("/api/passwords/page")
+                        .param("cursor", "garbage")
+                        .param("limit", "10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code", is("BAD_REQUEST")))
+                .andExpect(jsonPath("$.message", is("Invalid cursor")));
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords/metadata → entries without a password field")
+    void listPasswordMetadata_omitsSecrets() throws Exception {
+        PasswordMetadataDto entry = PasswordMetadataDto.builder()
+                .id(9L)
+                .service("Gmail")
+                .credential("alice@gmail.com")
+                .createdAt(Instant.parse("2025-06-01T12:00:00Z"))
+                .updatedAt(Instant.parse("2025-06-02T08:30:00Z"))
+                .build();
+        when(passwordService.listPasswordMetadata(USER_ID, null, 20))
+                .thenReturn(new CursorPageDto<>(List.of(entry), null));
+
+        mockMvc.perform(get("/api/passwords/metadata").param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id", is(9)))
+                .andExpect(jsonPath("$.items[0].service", is("Gmail")))
+                .andExpect(jsonPath("$.items[0].password").doesNotExist())
+                .andExpect(jsonPath("$.items[0].createdAt", notNullValue()))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords/search → metadata matches for the query")
+    void searchPasswordMetadata_passesQueryAndPaging() throws Exception {
+        PasswordMetadataDto entry = PasswordMetadataDto.builder()
+                .id(9L)
+                .service("GitHub")
+                .credential("alice")
+                .build();
+        when(passwordService.searchPasswordMetadata(USER_ID, "git", true, null, 10))
+                .thenReturn(new CursorPageDto<>(List.of(entry), "next-token"));
+
+        mockMvc.perform(get("/api/passwords/search")
+                        .param("q", "git")
+                        .param("prefix", "true")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].service", is("GitHub")))
+                .andExpect(jsonPath("$.items[0].password").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor", is("next-token")));
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords/changes → upserts and deletions since the sync token")
+    void listChanges_passesTokenAndLimit() throws Exception {
+        PasswordResponseDto entry = PasswordResponseDto.builder()
+                .id(9L)
+                .service("GitHub")
+                .credential("alice")
+                .password("secret")
+                .build();
+        when(passwordService.listChanges(USER_ID, "token-1", 20))
+                .thenReturn(new PasswordChangesDto(List.of(entry), List.of(4L), "token-2", false));
+
+        mockMvc.perform(get("/api/passwords/changes")
+                        .param("since", "token-1")
+                        .param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.upserts[0].password", is("secret")))
+                .andExpect(jsonPath("$.deletedIds[0]", is(4)))
+                .andExpect(jsonPath("$.syncToken", is("token-2")))
+                .andExpect(jsonPath("$.hasMore", is(false)));
+    }
+
+    @Test
+    @DisplayName("POST /api/passwords/bulk → per-entry results without rejecting the whole request")
+    void importPasswords_reportsEachEntry() throws Exception {
+        PasswordImportResultDto result = PasswordImportResultDto.builder()
+                .imported(1)
+                .rejected(1)
+                .items(List.of(
+                        PasswordImportItemDto.builder().index(0).id(42L).build(),
+                        PasswordImportItemDto.builder().index(1).error("password must not be blank").build()))
+                .build();
+        when(passwordService.importPasswords(eq(USER_ID), anyList())).thenReturn(result);
+
+        mockMvc.perform(post("/api/passwords/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"service":"Gmail","credential":"alice","password":"pw"},
+                                 {"service":"GitHub","credential":"alice","password":""}]"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.items[0].id", is(42)))
+                .andExpect(jsonPath("$.items[1].error", is("password must not be blank")));
+    }
+
+    @Test
+    @DisplayName("GET /api/passwords/export → one JSON document per line")
+    void exportPasswords_streamsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<PasswordResponseDto> sink = invocation.getArgument(1);
+            sink.accept(PasswordResponseDto.builder().id(1L).service("Gmail").credential("alice").password("a").build());
+            sink.accept(PasswordResponseDto.builder().id(2L).service("GitHub").credential("alice").password("b").build());
+            return null;
+        }).when(passwordService).exportPasswords(eq(USER_ID), any());
+
+        MvcResult started = mockMvc.perform(get("/api/passwords/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString("passwords.ndjson")))
+                .andExpect(content().string(
+                        "{\"id\":1,\"service\":\"Gmail\",\"credential\":\"alice\",\"password\":\"a\"}\n"
+                                + "{\"id\":2,\"service\":\"GitHub\",\"credential\":\"alice\",\"password\":\"b\"}\n"));
+    }
+
+    private static class FixedCurrentUserResolver implements HandlerMethodArgumentResolver {
+        @Override
+        public boolean supportsParameter(MethodParameter parameter) {
+            return parameter.hasParameterAnnotation(CurrentUser.class);
+        }
+
+        @Override
+        public Object resolveArgument(MethodParameter parameter,
+                                      ModelAndViewContainer mavContainer,
+                                      NativeWebRequest webRequest,
+                                      WebDataBinderFactory binderFactory) {
+            return USER_ID;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package io.github.wasp_stdnt.passwordmanagerv2.controller;
+
+import io.github.wasp_stdnt.passwordmanagerv2.config.CacheConfig;
+import io.github.wasp_stdnt.passwordmanagerv2.config.JacksonConfig;
+import io.github.wasp_stdnt.passwordmanagerv2.config.SecurityConfig;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordWriteDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.VaultChangeDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockJwt;
+
+// End to end through WebFlux, the reactive resolver and R2DBC against the same H2 schema JPA creates.
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+@ActiveProfiles("test")
+class ReactivePasswordApiTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private WebTestClient owner;
+    private WebTestClient stranger;
+
+    private String ownerEmail;
+
+    @BeforeEach
+    void setUp() {
+        ownerEmail = "owner-" + UUID.randomUUID() + "@example.com";
+        owner = as(ownerEmail);
+        stranger = as("stranger-" + UUID.randomUUID() + "@example.com");
+    }
+
+    @Test
+    void crudRoundTrip() {
+        PasswordResponseDto created = owner.post().uri("/api/passwords")
+                .bodyValue(write("Gmail"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PasswordResponseDto.class).returnResult().getResponseBody();
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getPassword()).isEqualTo("secret-Gmail");
+
+        owner.get().uri("/api/passwords/{id}", created.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.password").isEqualTo("secret-Gmail")
+                .jsonPath("$.service").isEqualTo("Gmail");
+
+        owner.put().uri("/api/passwords/{id}", created.getId())
+                .bodyValue(write("Google"))
+                .exchange()
+                .expectStatus().isOk();
+
+        owner.get().uri("/api/passwords/metadata")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(1)
+                .jsonPath("$.items[0].service").isEqualTo("Google")
+                .jsonPath("$.items[0].password").doesNotExist()
+                .jsonPath("$.nextCursor").doesNotExist();
+
+        owner.get().uri("/api/passwords")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].password").isEqualTo("secret-Google");
+
+        owner.delete().uri("/api/passwords/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNoContent();
+        owner.get().uri("/api/passwords/{id}", created.getId())
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.code").isEqualTo("NOT_FOUND");
+    }
+
+    @Test
+    void listingIsNotModifiedUntilTheVaultChanges() {
+        String etag = owner.get().uri("/api/passwords")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertThat(etag).isNotNull();
+
+        owner.get().uri("/api/passwords").ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        owner.post().uri("/api/passwords").bodyValue(write("Gmail")).exchange().expectStatus().isOk();
+
+        owner.get().uri("/api/passwords").ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value("ETag", changed -> assertThat(changed).isNotEqualTo(etag))
+                .expectBody().jsonPath("$[0].service").isEqualTo("Gmail");
+    }
+
+    @Test
+    void smileListingDecodesToTheSameEntriesUnderItsOwnETag() {
+        create(owner, "Gmail");
+        String jsonETag = owner.get().uri("/api/passwords")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+
+        List<PasswordResponseDto> entries = owner.get().uri("/api/passwords").accept(JacksonConfig.APPLICATION_SMILE)
+                .ifNoneMatch(jsonETag)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(JacksonConfig.APPLICATION_SMILE)
+                .expectHeader().valueEquals("Vary", "Accept")
+                .expectHeader().value("ETag", etag -> assertThat(etag).isNotEqualTo(jsonETag).endsWith("-smile\""))
+                .expectBodyList(PasswordResponseDto.class).returnResult().getResponseBody();
+        assertThat(entries).extracting(PasswordResponseDto::getPassword).containsExactly("secret-Gmail");
+    }
+
+    @Test
+    void malformedAcceptStillGetsTheJsonETag() {
+        create(owner, "Gmail");
+        String jsonETag = owner.get().uri("/api/passwords")
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+
+        owner.get().uri("/api/passwords").header("Accept", "application/x-jackson-smile;q=high")
+                .ifNoneMatch(jsonETag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", jsonETag);
+    }
+
+    @Test
+    void changesSinceATokenCarryOnlyNewWrites() {
+        Long kept = create(owner, "Gmail");
+        Long removed = create(owner, "Bank");
+        PasswordChangesDto initial = changes(owner, null);
+        assertThat(initial.getUpserts()).extracting(PasswordResponseDto::getPassword)
+                .containsExactly("secret-Gmail", "secret-Bank");
+
+        owner.put().uri("/api/passwords/{id}", kept).bodyValue(write("Google")).exchange().expectStatus().isOk();
+        owner.delete().uri("/api/passwords/{id}", removed).exchange().expectStatus().isNoContent();
+        create(stranger, "Elsewhere");
+
+        PasswordChangesDto delta = changes(owner, initial.getSyncToken());
+        assertThat(delta.getUpserts()).extracting(PasswordResponseDto::getService).containsExactly("Google");
+        assertThat(delta.getDeletedIds()).containsExactly(removed);
+        assertThat(delta.isHasMore()).isFalse();
+        assertThat(changes(owner, delta.getSyncToken()).getUpserts()).isEmpty();
+    }
+
+    @Test
+    void eventStreamStartsAtTheCurrentVersionAndPushesEachWrite() {
+        create(owner, "Gmail");
+        Flux<ServerSentEvent<VaultChangeDto>> events = owner.get().uri("/api/passwords/events")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<VaultChangeDto>>() {})
+                .getResponseBody();
+        Iterator<ServerSentEvent<VaultChangeDto>> received = events.timeout(Duration.ofSeconds(10)).toIterable().iterator();
+
+        ServerSentEvent<VaultChangeDto> current = received.next();
+        assertThat(current.event()).isEqualTo("vault-changed");
+        long version = current.data().getVaultVersion();
+        assertThat(version).isPositive();
+
+        create(stranger, "Elsewhere");
+        create(owner, "Bank");
+
+        ServerSentEvent<VaultChangeDto> pushed = received.next();
+        assertThat(pushed.data().getVaultVersion()).isEqualTo(version + 1);
+        assertThat(pushed.id()).isEqualTo(Long.toString(version + 1));
+    }
+
+    @Test
+    void otherUsersEntriesAreNotFound() {
+        Long id = owner.post().uri("/api/passwords")
+                .bodyValue(write("GitHub"))
+                .exchange()
+                .expectBody(PasswordResponseDto.class).returnResult().getResponseBody().getId();
+
+        stranger.get().uri("/api/passwords/{id}", id).exchange().expectStatus().isNotFound();
+        stranger.put().uri("/api/passwords/{id}", id).bodyValue(write("Stolen")).exchange().expectStatus().isNotFound();
+        stranger.delete().uri("/api/passwords/{id}", id).exchange().expectStatus().isNotFound();
+        owner.get().uri("/api/passwords/{id}", id).exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void bulkImportThenPageAndExport() {
+        List<PasswordWriteDto> entries = Arrays.asList(write("a"), write(""), write("b"), write("c"));
+
+        PasswordImportResultDto result = owner.post().uri("/api/passwords/bulk")
+                .bodyValue(entries)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PasswordImportResultDto.class).returnResult().getResponseBody();
+        assertThat(result.getImported()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getItems().get(1).getError()).isEqualTo("service must not be blank");
+
+        owner.get().uri("/api/passwords/page?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(2)
+                .jsonPath("$.items[0].password").isEqualTo("secret-a")
+                .jsonPath("$.nextCursor").isNotEmpty();
+
+        List<PasswordResponseDto> exported = owner.get().uri("/api/passwords/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(PasswordResponseDto.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertThat(exported).extracting(PasswordResponseDto::getPassword)
+                .containsExactly("secret-a", "secret-b", "secret-c");
+    }
+
+    @Test
+    void searchReturnsMatchingMetadataOnly() {
+        owner.post().uri("/api/passwords/bulk")
+                .bodyValue(List.of(write("GitHub"), write("Gmail"), write("Bank")))
+                .exchange()
+                .expectStatus().isOk();
+
+        owner.get().uri("/api/passwords/search?q=G&prefix=true&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(1)
+                .jsonPath("$.items[0].service").isEqualTo("GitHub")
+                .jsonPath("$.items[0].password").doesNotExist()
+                .jsonPath("$.nextCursor").isNotEmpty();
+        stranger.get().uri("/api/passwords/search?q=git")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.items.length()").isEqualTo(0);
+        owner.get().uri("/api/passwords/search")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void invalidBodyAndUnauthenticatedRequestsAreRejected() {
+        owner.post().uri("/api/passwords")
+                .bodyValue(PasswordWriteDto.builder().service("x").build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.code").isEqualTo("VALIDATION_FAILED");
+
+        webTestClient.get().uri("/api/passwords").exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void writesEvictTheMetadataPageTheServletStackCaches() {
+        owner.post().uri("/api/passwords").bodyValue(write("Gmail")).exchange().expectStatus().isOk();
+        Long userId = jdbcTemplate.queryForObject("select id from users where email = ?", Long.class, ownerEmail);
+        Cache cache = cacheManager.getCache(CacheConfig.PASSWORD_METADATA);
+        cache.put(userId, "stale first page");
+
+        owner.post().uri("/api/passwords").bodyValue(write("GitHub")).exchange().expectStatus().isOk();
+
+        assertThat(cache.get(userId)).isNull();
+    }
+
+    @Test
+    void metricsNeedTheMetricsScope() {
+        webTestClient.get().uri("/actuator/prometheus").exchange().expectStatus().isUnauthorized();
+        owner.get().uri("/actuator/prometheus").exchange().expectStatus().isForbidden();
+        // Metrics export is off in this context, so only the authorization decision is checked.
+        webTestClient.mutateWith(mockJwt().authorities(new SimpleGrantedAuthority(SecurityConfig.METRICS_AUTHORITY)))
+                .get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().value(status -> assertThat(status).isNotIn(401, 403));
+    }
+
+    private WebTestClient as(String email) {
+        return webTestClient.mutateWith(mockJwt().jwt(jwt -> jwt.claim("preferred_username", email)));
+    }
+
+    private static Long create(WebTestClient client, String service) {
+        return client.post().uri("/api/passwords")
+                .bodyValue(write(service))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PasswordResponseDto.class).returnResult().getResponseBody().getId();
+    }
+
+    private static PasswordChangesDto changes(WebTestClient client, String since) {
+        return client.get().uri(builder -> builder.path("/api/passwords/changes")
+                        .queryParamIfPresent("since", Optional.ofNullable(since)).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(PasswordChangesDto.class).returnResult().getResponseBody();
+    }
+
+    private static PasswordWriteDto write(String service) {
+        return PasswordWriteDto.builder()
+                .service(service)
+                .credential("alice@example.com")
+                .password("secret-" + service)
+                .build();
+    }
+}
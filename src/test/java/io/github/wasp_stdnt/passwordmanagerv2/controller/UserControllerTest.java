@@ -6,6 +6,7 @@ import io.github.wasp_stdnt.passwordmanagerv2.dto.UserResponseDto;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.ConflictException;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.GlobalExceptionHandler;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.NotFoundException;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.ServiceUnavailableException;
 import io.github.wasp_stdnt.passwordmanagerv2.service.UserService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,10 +16,13 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Duration;
+
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
@@ -99,6 +103,27 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.message", is("Email already in use")));
     }
 
+    @Test
+    @DisplayName("POST /api/users → hashing pool saturated → 503 + Retry-After")
+    void register_hashingSaturated() throws Exception {
+        UserRegistrationDto registrationDto = UserRegistrationDto.builder()
+                .name("Dana")
+                .email("dana@example.com")
+                .password("pass12345")
+                .build();
+
+        when(userService.register(any(UserRegistrationDto.class)))
+                .thenThrow(new ServiceUnavailableException("Password hashing is at capacity, retry later",
+                        Duration.ofSeconds(2)));
+
+        mockMvc.perform(post("/api/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(registrationDto)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"))
+                .andExpect(jsonPath("$.code", is("SERVICE_UNAVAILABLE")));
+    }
+
     @Test
     @DisplayName("GET /api/users/{id} → found → 200 OK + UserResponseDto")
     void getById_success() throws Exception {
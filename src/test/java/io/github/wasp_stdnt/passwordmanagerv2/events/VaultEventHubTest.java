@@ -0,0 +1,138 @@
+package io.github.wasp_stdnt.passwordmanagerv2.events;
+
+import io.github.wasp_stdnt.passwordmanagerv2.dto.VaultChangeDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.Disposable;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class VaultEventHubTest {
+
+    private LocalVaultEventBus bus;
+    private VaultEventHub hub;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        bus = new LocalVaultEventBus();
+        hub = new VaultEventHub(bus, 2, Duration.ofMinutes(1));
+        registry = new SimpleMeterRegistry();
+        hub.bindTo(registry);
+    }
+
+    @Test
+    void streamStartsWithTheCurrentVersionThenCarriesOnlyThatUsersChanges() {
+        List<ServerSentEvent<VaultChangeDto>> received = new CopyOnWriteArrayList<>();
+        Disposable stream = hub.stream(1L, Mono.just(5L)).subscribe(received::add);
+
+        bus.publish(2L, 9L);
+        bus.publish(1L, 6L);
+        stream.dispose();
+
+        assertThat(received).extracting(ServerSentEvent::id).containsExactly("5", "6");
+        assertThat(received).extracting(ServerSentEvent::event).containsOnly(VaultEventHub.EVENT_NAME);
+        assertThat(received.get(1).data().getVaultVersion()).isEqualTo(6L);
+    }
+
+    @Test
+    void subscriberThatFallsBehindIsCompletedAndCounted() {
+        List<Long> received = new CopyOnWriteArrayList<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        BaseSubscriber<Long> stalled = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                // No demand until the buffer has overflowed.
+            }
+
+            @Override
+            protected void hookOnNext(Long version) {
+                received.add(version);
+            }
+
+            @Override
+            protected void hookOnComplete() {
+                completed.set(true);
+            }
+        };
+        hub.subscribe(1L).subscribe(stalled);
+
+        bus.publish(1L, 1L);
+        bus.publish(1L, 2L);
+        bus.publish(1L, 3L);
+        bus.publish(1L, 4L);
+        stalled.request(Long.MAX_VALUE);
+
+        assertThat(received).containsExactly(1L, 2L);
+        assertThat(completed).isTrue();
+        assertThat(registry.get("vault.events.overflows").functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("vault.events.subscriptions").gauge().value()).isZero();
+    }
+
+    @Test
+    void cancelledSubscriptionIsRemoved() {
+        Disposable first = hub.subscribe(1L).subscribe();
+        Disposable second = hub.subscribe(1L).subscribe();
+        assertThat(registry.get("vault.events.subscriptions").gauge().value()).isEqualTo(2.0);
+
+        first.dispose();
+        second.dispose();
+
+        assertThat(registry.get("vault.events.subscriptions").gauge().value()).isZero();
+        bus.publish(1L, 1L);
+    }
+
+    @Test
+    void redisBusDeliversLocallyAndRelaysToOtherNodesOnly() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        RedisVaultEventBus redisBus = new RedisVaultEventBus(redis);
+        List<String> received = new CopyOnWriteArrayList<>();
+        redisBus.subscribe((userId, version) -> received.add(userId + "@" + version));
+
+        redisBus.publish(3L, 11L);
+        assertThat(received).containsExactly("3@11");
+        verify(redis).convertAndSend(RedisVaultEventBus.CHANNEL, RedisVaultEventBus.encode(redisBus.nodeId(), 3L, 11L));
+
+        redisBus.onMessage(message(RedisVaultEventBus.encode(redisBus.nodeId(), 3L, 11L)), null);
+        redisBus.onMessage(message(RedisVaultEventBus.encode("other-node", 4L, 2L)), null);
+        redisBus.onMessage(message("not-an-event"), null);
+
+        assertThat(received).containsExactly("3@11", "4@2");
+    }
+
+    @Test
+    void redisOutageStillReachesTheWritingNodesListeners() {
+        StringRedisTemplate redis = mock(StringRedisTemplate.class);
+        doThrow(new RedisConnectionFailureException("down")).when(redis).convertAndSend(anyString(), anyString());
+        RedisVaultEventBus redisBus = new RedisVaultEventBus(redis);
+        List<String> received = new CopyOnWriteArrayList<>();
+        redisBus.subscribe((userId, version) -> received.add(userId + "@" + version));
+
+        redisBus.publish(3L, 12L);
+
+        assertThat(received).containsExactly("3@12");
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(RedisVaultEventBus.CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+}
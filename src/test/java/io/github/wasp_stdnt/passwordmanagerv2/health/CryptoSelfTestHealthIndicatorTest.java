@@ -0,0 +1,33 @@
+package io.github.wasp_stdnt.passwordmanagerv2.health;
+
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+import java.security.GeneralSecurityException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CryptoSelfTestHealthIndicatorTest {
+
+    private static final String KEY = "zlOUCikArtsQvFCE/8lsDw4tY88ozFGJoczfNGZxd7k=";
+
+    @Test
+    void health_roundTripIsUp() {
+        CryptoSelfTestHealthIndicator indicator =
+                new CryptoSelfTestHealthIndicator(new PasswordEncryptionService(KEY));
+
+        assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void health_cipherFailureIsDown() throws GeneralSecurityException {
+        PasswordEncryptionService broken = mock(PasswordEncryptionService.class);
+        when(broken.seal(any())).thenThrow(new GeneralSecurityException("bad key"));
+
+        assertThat(new CryptoSelfTestHealthIndicator(broken).health().getStatus()).isEqualTo(Status.DOWN);
+    }
+}
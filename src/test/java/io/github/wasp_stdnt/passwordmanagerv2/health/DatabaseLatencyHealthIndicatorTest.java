@@ -0,0 +1,53 @@
+package io.github.wasp_stdnt.passwordmanagerv2.health;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseLatencyHealthIndicatorTest {
+
+    @Mock private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void health_fastRoundTripIsUp() {
+        when(jdbcTemplate.queryForObject("select 1", Integer.class)).thenReturn(1);
+
+        Health health = new DatabaseLatencyHealthIndicator(jdbcTemplate, Duration.ofSeconds(5)).health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.UP);
+        assertThat(health.getDetails()).containsKeys("latencyMs", "thresholdMs");
+    }
+
+    @Test
+    void health_slowRoundTripIsDegraded() {
+        when(jdbcTemplate.queryForObject("select 1", Integer.class)).thenAnswer(invocation -> {
+            Thread.sleep(20);
+            return 1;
+        });
+
+        Health health = new DatabaseLatencyHealthIndicator(jdbcTemplate, Duration.ofMillis(1)).health();
+
+        assertThat(health.getStatus()).isEqualTo(DatabaseLatencyHealthIndicator.DEGRADED);
+    }
+
+    @Test
+    void health_failedQueryIsDown() {
+        when(jdbcTemplate.queryForObject("select 1", Integer.class))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        Health health = new DatabaseLatencyHealthIndicator(jdbcTemplate, Duration.ofSeconds(5)).health();
+
+        assertThat(health.getStatus()).isEqualTo(Status.DOWN);
+    }
+}
@@ -0,0 +1,226 @@
+package io.github.wasp_stdnt.passwordmanagerv2.loadtest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Thousands of concurrent keep-alive clients against one server, to compare how many threads and
+// database connections each stack holds while they wait. Clients are driven asynchronously from a
+// small fixed pool, so the thread counts below are dominated by the server. Excluded from the default
+// build; run with
+//   mvn test -Ploadtest -Dtest=FanInLoadTest -Dloadtest.clients=2000 -Dspring.main.web-application-type=reactive
+// and again with -Dspring.main.web-application-type=servlet for the same traffic through Spring MVC + JPA.
+// The report is printed and written to target/fan-in-report.txt.
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(LocalJwtConfig.class)
+class FanInLoadTest {
+    private static final int CLIENTS = Integer.getInteger("loadtest.clients", 2000);
+    private static final int USERS = Integer.getInteger("loadtest.users", 100);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+    private static final Path REPORT = Path.of("target", "fan-in-report.txt");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private Environment environment;
+
+    private final ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(clientExecutor)
+            .build();
+
+    @Test
+    void thousandsOfConcurrentClients() throws Exception {
+        boolean reactive = "reactive".equals(environment.getProperty("spring.main.web-application-type"));
+        String base = "http://localhost:" + port + "/api/passwords";
+        List<String> tokens = new ArrayList<>();
+        for (int user = 0; user < USERS; user++) {
+            String token = LocalJwtConfig.mint(jwtEncoder, "fan-in-" + user + "@example.com",
+                    WARMUP.plus(DURATION).plusMinutes(5));
+            for (int entry = 0; entry < 5; entry++) {
+                HttpResponse<String> created = client.send(create(base, token, user + "-" + entry),
+                        HttpResponse.BodyHandlers.ofString());
+                assertThat(created.statusCode()).isEqualTo(200);
+            }
+            tokens.add(token);
+        }
+
+        long warmupEnd = System.nanoTime() + WARMUP.toNanos();
+        long end = warmupEnd + DURATION.toNanos();
+        LatencyRecorder[] recorders = new LatencyRecorder[CLIENTS];
+        List<CompletableFuture<Void>> clients = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            recorders[i] = new LatencyRecorder();
+            clients.add(run(base, tokens.get(i % USERS), i, recorders[i], warmupEnd, end));
+        }
+
+        Sampler sampler = new Sampler(reactive);
+        ScheduledExecutorService sampling = Executors.newSingleThreadScheduledExecutor();
+        sampling.scheduleAtFixedRate(() -> {
+            if (System.nanoTime() >= warmupEnd) {
+                sampler.sample();
+            }
+        }, 100, 100, TimeUnit.MILLISECONDS);
+        CompletableFuture.allOf(clients.toArray(CompletableFuture[]::new)).get();
+        sampling.shutdownNow();
+        clientExecutor.shutdown();
+
+        LatencyRecorder all = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            all.merge(recorder);
+        }
+        String report = report(reactive, all) + sampler.report();
+        System.out.println(report);
+        Files.createDirectories(REPORT.getParent());
+        Files.writeString(REPORT, report);
+
+        assertThat(all.errors()).isZero();
+    }
+
+    // Four reads of a decrypted page for every write, issued back to back on one connection per client.
+    private CompletableFuture<Void> run(String base, String token, int clientId, LatencyRecorder recorder,
+                                        long warmupEnd, long end) {
+        if (System.nanoTime() >= end) {
+            return CompletableFuture.completedFuture(null);
+        }
+        boolean write = ThreadLocalRandom.current().nextInt(5) == 0;
+        HttpRequest request = write
+                ? create(base, token, clientId + "-" + System.nanoTime())
+                : authorized(URI.create(base + "/page?limit=20"), token).GET().build();
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, failure) -> {
+                    if (start >= warmupEnd) {
+                        if (failure == null && response.statusCode() == 200) {
+                            recorder.record(System.nanoTime() - start);
+                        } else {
+                            recorder.recordError();
+                        }
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> run(base, token, clientId, recorder, warmupEnd, end));
+    }
+
+    private static HttpRequest create(String base, String token, String suffix) {
+        String body = "{\"service\":\"service-" + suffix + "\",\"credential\":\"user@example.com\","
+                + "\"password\":\"secret-" + suffix + "\"}";
+        return authorized(URI.create(base), token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private static HttpRequest.Builder authorized(URI uri, String token) {
+        return HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(60));
+    }
+
+    private static String report(boolean reactive, LatencyRecorder all) {
+        double seconds = DURATION.toNanos() / 1e9;
+        return String.format("Fan-in: %s stack, %d clients over %d users, %ds warm-up, %ds measured, %d CPUs, Java %s%n",
+                reactive ? "reactive (WebFlux + R2DBC)" : "servlet (MVC + JPA)", CLIENTS, USERS,
+                WARMUP.toSeconds(), DURATION.toSeconds(), Runtime.getRuntime().availableProcessors(), Runtime.version())
+                + String.format("%9s %7s %9s %9s %9s %9s%n", "Requests", "Errors", "Req/s", "p50 ms", "p95 ms", "p99 ms")
+                + String.format("%9d %7d %9.1f %9.2f %9.2f %9.2f%n", all.count(), all.errors(), all.count() / seconds,
+                all.percentileMillis(50), all.percentileMillis(95), all.percentileMillis(99));
+    }
+
+    // Peak and mean of live threads and pooled database connections, sampled every 100 ms.
+    private final class Sampler {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final String pool;
+        private final Gauge active;
+        private final Gauge pending;
+        private final Gauge max;
+        private int samples;
+        private int peakThreads;
+        private int peakRequestThreads;
+        private double peakActive;
+        private double peakPending;
+        private double sumActive;
+        private long sumThreads;
+
+        Sampler(boolean reactive) {
+            pool = reactive ? "r2dbc" : "hikari";
+            active = meterRegistry.find(reactive ? "r2dbc.pool.acquired" : "hikaricp.connections.active").gauge();
+            pending = meterRegistry.find(reactive ? "r2dbc.pool.pending" : "hikaricp.connections.pending").gauge();
+            max = meterRegistry.find(reactive ? "r2dbc.pool.max" : "hikaricp.connections.max").gauge();
+        }
+
+        synchronized void sample() {
+            samples++;
+            int live = threads.getThreadCount();
+            peakThreads = Math.max(peakThreads, live);
+            sumThreads += live;
+            int requestThreads = 0;
+            for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+                if (info != null && isRequestThread(info.getThreadName())) {
+                    requestThreads++;
+                }
+            }
+            peakRequestThreads = Math.max(peakRequestThreads, requestThreads);
+            double acquired = value(active);
+            peakActive = Math.max(peakActive, acquired);
+            sumActive += acquired;
+            peakPending = Math.max(peakPending, value(pending));
+        }
+
+        synchronized String report() {
+            return String.format("Threads: peak live %d, mean live %.0f, peak request-handling %d%n",
+                    peakThreads, samples == 0 ? 0.0 : (double) sumThreads / samples, peakRequestThreads)
+                    + String.format("DB connections (%s, max %.0f): peak in use %.0f, mean in use %.1f, peak waiting %.0f%n",
+                    pool, value(max), peakActive, samples == 0 ? 0.0 : sumActive / samples, peakPending);
+        }
+
+        // Tomcat workers, Netty event loops and the crypto scheduler.
+        private static boolean isRequestThread(String name) {
+            return name.startsWith("http-nio") || name.startsWith("reactor-http") || name.startsWith("crypto-reactive");
+        }
+
+        private static double value(Gauge gauge) {
+            return gauge != null ? gauge.value() : Double.NaN;
+        }
+    }
+}
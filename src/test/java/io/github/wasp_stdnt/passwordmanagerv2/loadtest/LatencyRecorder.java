@@ -0,0 +1,47 @@
+package io.github.wasp_stdnt.passwordmanagerv2.loadtest;
+
+import java.util.Arrays;
+
+// Not thread-safe: each load-test worker records into its own instance and they are merged at the end.
+final class LatencyRecorder {
+    private long[] samples = new long[1024];
+    private int count;
+    private int errors;
+
+    void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    void recordError() {
+        errors++;
+    }
+
+    void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.samples[i]);
+        }
+        errors += other.errors;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int errors() {
+        return errors;
+    }
+
+    // Nearest-rank percentile, in milliseconds.
+    double percentileMillis(double percentile) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.max(0, rank - 1)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,229 @@
+package io.github.wasp_stdnt.passwordmanagerv2.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Mixed CRUD traffic against the full HTTP stack on H2, authenticated with locally minted JWTs.
+// Excluded from the default build; run with
+//   mvn test -Ploadtest -Dloadtest.concurrency=32 -Dloadtest.duration=PT60S
+// and add -Dspring.threads.virtual.enabled=true to compare against virtual-thread request handling.
+// The report is printed and written to target/loadtest-report.txt.
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(LocalJwtConfig.class)
+class PasswordApiLoadTest {
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+    private static final Path REPORT = Path.of("target", "loadtest-report.txt");
+
+    enum Endpoint {
+        CREATE("POST   /api/passwords", 20, 200),
+        LIST_METADATA("GET    /api/passwords/metadata", 25, 200),
+        LIST_PAGE("GET    /api/passwords/page", 10, 200),
+        GET("GET    /api/passwords/{id}", 30, 200),
+        UPDATE("PUT    /api/passwords/{id}", 10, 200),
+        DELETE("DELETE /api/passwords/{id}", 5, 204);
+
+        final String label;
+        final int weight;
+        final int expectedStatus;
+
+        Endpoint(String label, int weight, int expectedStatus) {
+            this.label = label;
+            this.weight = weight;
+            this.expectedStatus = expectedStatus;
+        }
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JwtEncoder jwtEncoder;
+
+    @Autowired
+    private Environment environment;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+
+    @Test
+    void mixedTraffic() throws Exception {
+        long warmupEnd = System.nanoTime() + WARMUP.toNanos();
+        long end = warmupEnd + DURATION.toNanos();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Future<Map<Endpoint, LatencyRecorder>>> futures = new ArrayList<>();
+        for (int i = 0; i < CONCURRENCY; i++) {
+            int worker = i;
+            futures.add(workers.submit(() -> runWorker(worker, warmupEnd, end)));
+        }
+        Map<Endpoint, LatencyRecorder> totals = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            totals.put(endpoint, new LatencyRecorder());
+        }
+        Thread.sleep(Math.max(0, (warmupEnd - System.nanoTime()) / 1_000_000));
+        threads.resetPeakThreadCount();
+        ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+        for (Future<Map<Endpoint, LatencyRecorder>> future : futures) {
+            future.get().forEach((endpoint, recorder) -> totals.get(endpoint).merge(recorder));
+        }
+        workers.shutdown();
+
+        String report = report(totals) + String.format("Request threads: %s, peak live threads %d, peak heap %.1f MB%n",
+                environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false) ? "virtual" : "platform",
+                threads.getPeakThreadCount(), peakHeapBytes() / (1024.0 * 1024.0));
+        System.out.println(report);
+        Files.createDirectories(REPORT.getParent());
+        Files.writeString(REPORT, report);
+
+        assertThat(totals.values()).allSatisfy(recorder -> assertThat(recorder.errors()).isZero());
+    }
+
+    private Map<Endpoint, LatencyRecorder> runWorker(int worker, long warmupEnd, long end) throws Exception {
+        String token = LocalJwtConfig.mint(jwtEncoder, "load-user-" + worker + "@example.com",
+                WARMUP.plus(DURATION).plusMinutes(5));
+        Map<Endpoint, LatencyRecorder> recorders = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.put(endpoint, new LatencyRecorder());
+        }
+        List<Long> ownedIds = new ArrayList<>();
+        int sequence = 0;
+        while (System.nanoTime() < end) {
+            Endpoint endpoint = ownedIds.isEmpty() ? Endpoint.CREATE : pick();
+            Long id = ownedIds.isEmpty() ? null : ownedIds.get(ThreadLocalRandom.current().nextInt(ownedIds.size()));
+            HttpRequest request = request(endpoint, token, id, worker + "-" + sequence++);
+
+            long start = System.nanoTime();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long elapsed = System.nanoTime() - start;
+
+            boolean ok = response.statusCode() == endpoint.expectedStatus;
+            if (ok && endpoint == Endpoint.CREATE) {
+                ownedIds.add(readId(response.body()));
+            } else if (ok && endpoint == Endpoint.DELETE) {
+                ownedIds.remove(id);
+            }
+            if (start >= warmupEnd) {
+                LatencyRecorder recorder = recorders.get(endpoint);
+                if (ok) {
+                    recorder.record(elapsed);
+                } else {
+                    recorder.recordError();
+                }
+            }
+        }
+        return recorders;
+    }
+
+    private HttpRequest request(Endpoint endpoint, String token, Long id, String suffix) {
+        String base = "http://localhost:" + port + "/api/passwords";
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30));
+        String body = "{\"service\":\"service-" + suffix + "\",\"credential\":\"user@example.com\","
+                + "\"password\":\"secret-" + suffix + "\"}";
+        return switch (endpoint) {
+            case CREATE -> builder.uri(URI.create(base))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+            case LIST_METADATA -> builder.uri(URI.create(base + "/metadata")).GET().build();
+            case LIST_PAGE -> builder.uri(URI.create(base + "/page?limit=20")).GET().build();
+            case GET -> builder.uri(URI.create(base + "/" + id)).GET().build();
+            case UPDATE -> builder.uri(URI.create(base + "/" + id))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(body)).build();
+            case DELETE -> builder.uri(URI.create(base + "/" + id)).DELETE().build();
+        };
+    }
+
+    private Long readId(String body) throws IOException {
+        JsonNode node = objectMapper.readTree(body);
+        return node.get("id").asLong();
+    }
+
+    private static Endpoint pick() {
+        int total = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            total += endpoint.weight;
+        }
+        int roll = ThreadLocalRandom.current().nextInt(total);
+        for (Endpoint endpoint : Endpoint.values()) {
+            roll -= endpoint.weight;
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+
+    private static String report(Map<Endpoint, LatencyRecorder> totals) {
+        double seconds = DURATION.toNanos() / 1e9;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("Load test: %d workers, %ds warm-up, %ds measured, %d CPUs, Java %s%n",
+                CONCURRENCY, WARMUP.toSeconds(), DURATION.toSeconds(),
+                Runtime.getRuntime().availableProcessors(), Runtime.version()));
+        out.append(String.format("%-32s %9s %7s %9s %9s %9s %9s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 ms", "p95 ms", "p99 ms"));
+        LatencyRecorder all = new LatencyRecorder();
+        for (Map.Entry<Endpoint, LatencyRecorder> entry : totals.entrySet()) {
+            out.append(row(entry.getKey().label, entry.getValue(), seconds));
+            all.merge(entry.getValue());
+        }
+        out.append(row("TOTAL", all, seconds));
+        return out.toString();
+    }
+
+    private static String row(String label, LatencyRecorder recorder, double seconds) {
+        return String.format("%-32s %9d %7d %9.1f %9.2f %9.2f %9.2f%n",
+                label, recorder.count(), recorder.errors(), recorder.count() / seconds,
+                recorder.percentileMillis(50), recorder.percentileMillis(95), recorder.percentileMillis(99));
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// A database ddl-auto=update created before migrations existed: no flyway_schema_history, identity ids and
+// only the legacy ciphertext/iv columns. Flyway baselines it at V1 and runs V2+; ddl-auto=validate then only
+// lets the context start if those migrations brought it up to the entities.
+@SpringBootTest(properties = "spring.datasource.url=" + BaselinedSchemaUpgradeTest.URL)
+@ActiveProfiles("test")
+class BaselinedSchemaUpgradeTest {
+    static final String URL = "jdbc:h2:mem:pre-flyway;DB_CLOSE_DELAY=-1";
+
+    @Autowired private Flyway flyway;
+    @Autowired private PasswordRepository passwordRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void createPreFlywaySchema() {
+        JdbcTemplate jdbc = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        jdbc.execute("""
+                create table users (
+                    id bigint generated by default as identity,
+                    email varchar(255) not null unique,
+                    name varchar(255),
+                    password_hash varchar(255) not null,
+                    primary key (id))""");
+        jdbc.execute("""
+                create table passwords (
+                    id bigint generated by default as identity,
+                    user_id bigint not null,
+                    service TEXT,
+                    credential TEXT not null,
+                    ciphertext TEXT not null,
+                    iv TEXT not null,
+                    primary key (id),
+                    constraint fk_passwords_user foreign key (user_id) references users)""");
+        jdbc.update("insert into users (email, password_hash) values ('legacy@example.com', 'hash')");
+        jdbc.update("""
+                insert into passwords (user_id, service, credential, ciphertext, iv)
+                select id, 'Gmail', 'legacy', 'Y2lwaGVy', 'aXY=' from users""");
+    }
+
+    @Test
+    void preFlywayDatabaseIsBaselinedAndMigratedToTheCurrentSchema() {
+        assertThat(flyway.info().applied()[0].getType().isBaseline()).isTrue();
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("12");
+
+        List<LegacyCiphertextView> legacy = passwordRepository.findLegacyPage(0L, Limit.of(10));
+        assertThat(legacy).singleElement()
+                .satisfies(row -> assertThat(row.getCiphertext()).isEqualTo("Y2lwaGVy"));
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from passwords where envelope is null and created_at is null", Integer.class))
+                .isEqualTo(1);
+    }
+}
@@ -0,0 +1,142 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import io.github.wasp_stdnt.passwordmanagerv2.dto.UserRegistrationDto;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
+import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import io.github.wasp_stdnt.passwordmanagerv2.security.CurrentUserArgumentResolver;
+import io.github.wasp_stdnt.passwordmanagerv2.service.PasswordService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Two local databases: the test profile's H2 as primary and a second H2 as the replica. Replication is
+// played by hand, writing rows and the heartbeat straight into the replica, so every read shows which
+// database answered: the replica holds vault version 42 for each user, the primary 0.
+@SpringBootTest(properties = {
+        "app.datasource.replicas.enabled=true",
+        "app.datasource.replicas.urls=" + ReplicaRoutingDataSourceTest.REPLICA_URL,
+        "app.datasource.replicas.check-interval=PT1H"
+})
+@ActiveProfiles("test")
+class ReplicaRoutingDataSourceTest {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+    private static final long REPLICA_VERSION = 42L;
+
+    private static JdbcTemplate replica;
+
+    @Autowired private PasswordService passwordService;
+    @Autowired private UserService userService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private ReplicaRoutingDataSource router;
+    @Autowired private VaultEventBus eventBus;
+    @Autowired private MeterRegistry meterRegistry;
+
+    @BeforeAll
+    static void createReplica() {
+        DataSource dataSource = new DriverManagerDataSource(REPLICA_URL, "sa", "");
+        Flyway.configure().dataSource(dataSource).locations("classpath:db/migration/common", "classpath:db/migration/h2").load().migrate();
+        replica = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToACurrentReplica() {
+        Long userId = userOnBothDatabases();
+        replicaReplayedUpTo(Instant.now());
+        double before = replicaReads();
+
+        actingAs(userId);
+
+        assertThat(passwordService.getVaultVersion(userId)).isEqualTo(REPLICA_VERSION);
+        assertThat(replicaReads()).isEqualTo(before + 1);
+    }
+
+    @Test
+    void laggingReplicaFallsBackToThePrimary() {
+        Long userId = userOnBothDatabases();
+        replicaReplayedUpTo(Instant.now().minusSeconds(60));
+
+        actingAs(userId);
+
+        assertThat(passwordService.getVaultVersion(userId)).isZero();
+        assertThat(meterRegistry.get("db.replica.lag").gauge().value()).isGreaterThanOrEqualTo(60.0);
+    }
+
+    @Test
+    void writerReadsFromThePrimaryUntilTheReplicaHasReplayedTheWrite() {
+        Long writer = userOnBothDatabases();
+        Long other = userOnBothDatabases();
+        replicaReplayedUpTo(Instant.now());
+        eventBus.publish(writer, 1L);
+
+        actingAs(writer);
+        assertThat(passwordService.getVaultVersion(writer)).isZero();
+        actingAs(other);
+        assertThat(passwordService.getVaultVersion(other)).isEqualTo(REPLICA_VERSION);
+
+        replicaReplayedUpTo(Instant.now().plusMillis(1));
+        actingAs(writer);
+        assertThat(passwordService.getVaultVersion(writer)).isEqualTo(REPLICA_VERSION);
+    }
+
+    @Test
+    void newUsersFirstReadDoesNotHitAReplicaWithoutTheirRow() {
+        replicaReplayedUpTo(Instant.now().minusMillis(1));
+        String email = "replica-new-" + UUID.randomUUID() + "@example.com";
+        Long userId = userService.register(UserRegistrationDto.builder()
+                .name("New").email(email).password("password123").build()).getId();
+        double before = replicaReads();
+
+        actingAs(userId);
+
+        assertThat(userService.getById(userId).getEmail()).isEqualTo(email);
+        assertThat(replicaReads()).isEqualTo(before);
+    }
+
+    private Long userOnBothDatabases() {
+        User user = new User();
+        user.setEmail("replica-" + UUID.randomUUID() + "@example.com");
+        user.setPasswordHash("hash");
+        Long id = userRepository.save(user).getId();
+        replica.update("insert into users (id, email, password_hash, vault_version) values (?, ?, 'hash', ?)",
+                id, user.getEmail(), REPLICA_VERSION);
+        return id;
+    }
+
+    private void replicaReplayedUpTo(Instant beat) {
+        replica.update("update replication_heartbeat set beat_at = ? where id = 1", beat.atOffset(ZoneOffset.UTC));
+        router.refresh();
+    }
+
+    private static void actingAs(Long userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(CurrentUserArgumentResolver.USER_ID_ATTRIBUTE, userId);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private double replicaReads() {
+        return meterRegistry.get("db.read_only.connections").tag("target", "replica").functionCounter().count();
+    }
+}
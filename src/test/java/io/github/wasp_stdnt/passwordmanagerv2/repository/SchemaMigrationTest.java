@@ -0,0 +1,66 @@
+package io.github.wasp_stdnt.passwordmanagerv2.repository;
+
+import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// The test profile runs the common and h2 migrations on H2 with ddl-auto=validate, so a context that
+// starts at all means the entities match the migrated schema.
+@SpringBootTest
+@ActiveProfiles("test")
+class SchemaMigrationTest {
+
+    @Autowired private Flyway flyway;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void migrationsAreAppliedAndNothingIsPending() {
+        assertThat(flyway.info().pending()).isEmpty();
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("12");
+    }
+
+    @Test
+    void passwordsAreIndexedByUserAndId() {
+        Integer columns = jdbcTemplate.queryForObject("""
+                select count(*) from information_schema.index_columns
+                where lower(index_name) = 'idx_passwords_user_id_id'""", Integer.class);
+        assertThat(columns).isEqualTo(2);
+    }
+
+    @Test
+    void emailLookupIgnoresCase() {
+        String local = "mixed-" + UUID.randomUUID();
+        User user = new User();
+        user.setEmail(local + "@Example.com");
+        user.setPasswordHash("hash");
+        Long id = userRepository.save(user).getId();
+
+        assertThat(userRepository.findByEmail(local.toUpperCase() + "@EXAMPLE.COM"))
+                .hasValueSatisfying(found -> assertThat(found.getId()).isEqualTo(id));
+    }
+
+    @Test
+    void emailsDifferingOnlyInCaseCannotBothExist() {
+        String local = "twice-" + UUID.randomUUID();
+        User first = new User();
+        first.setEmail(local + "@example.com");
+        first.setPasswordHash("hash");
+        userRepository.save(first);
+
+        User second = new User();
+        second.setEmail(local.toUpperCase() + "@Example.com");
+        second.setPasswordHash("hash");
+        assertThatThrownBy(() -> userRepository.save(second)).isInstanceOf(DataIntegrityViolationException.class);
+    }
+}
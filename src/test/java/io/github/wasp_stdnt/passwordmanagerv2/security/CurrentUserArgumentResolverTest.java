@@ -0,0 +1,120 @@
+package io.github.wasp_stdnt.passwordmanagerv2.security;
+
+import io.github.wasp_stdnt.passwordmanagerv2.cache.LocalCacheInvalidationBus;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
+import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CurrentUserArgumentResolverTest {
+
+    @Mock private UserRepository userRepository;
+    @Mock private VaultEventBus vaultEvents;
+
+    private UserIdCache userIdCache;
+    private SimpleMeterRegistry meterRegistry;
+    private CurrentUserArgumentResolver resolver;
+    private final ServletWebRequest request = new ServletWebRequest(new MockHttpServletRequest());
+
+    @BeforeEach
+    void setUp() {
+        userIdCache = new UserIdCache(100, Duration.ofMinutes(5), new LocalCacheInvalidationBus());
+        meterRegistry = new SimpleMeterRegistry();
+        resolver = new CurrentUserArgumentResolver(userRepository, userIdCache, vaultEvents, meterRegistry);
+        Jwt jwt = Jwt.withTokenValue("token")
+                .header("alg", "none")
+                .claim("preferred_username", "alice@example.com")
+                .claim("given_name", "Alice")
+                .build();
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(jwt));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void resolveArgument_repeatCallerIsServedFromCache() {
+        User alice = new User();
+        alice.setId(7L);
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(alice));
+
+        Object first = resolver.resolveArgument(null, null, request, null);
+        Object second = resolver.resolveArgument(null, null, request, null);
+
+        assertThat(first).isEqualTo(7L);
+        assertThat(second).isEqualTo(7L);
+        assertThat(request.getAttribute(CurrentUserArgumentResolver.USER_ID_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))
+                .isEqualTo(7L);
+        verify(userRepository, times(1)).findByEmail("alice@example.com");
+        assertThat(userIdCache.stats().hitCount()).isEqualTo(1);
+        assertThat(resolveCount("cache")).isEqualTo(1);
+        assertThat(resolveCount("database")).isEqualTo(1);
+        assertThat(userIdCache.stats().missCount()).isEqualTo(1);
+    }
+
+    @Test
+    void resolveArgument_evictedUserIsLookedUpAgain() {
+        User alice = new User();
+        alice.setId(7L);
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(alice));
+
+        resolver.resolveArgument(null, null, request, null);
+        userIdCache.evictUserId(7L);
+        resolver.resolveArgument(null, null, request, null);
+
+        verify(userRepository, times(2)).findByEmail("alice@example.com");
+    }
+
+    @Test
+    void resolveArgument_provisionsUnknownSubjectOnce() {
+        User saved = new User();
+        saved.setId(9L);
+        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.empty());
+        when(userRepository.save(any(User.class))).thenReturn(saved);
+
+        assertThat(resolver.resolveArgument(null, null, request, null)).isEqualTo(9L);
+        assertThat(resolver.resolveArgument(null, null, request, null)).isEqualTo(9L);
+
+        verify(userRepository, times(1)).save(any(User.class));
+        verify(vaultEvents, times(1)).publish(9L, 0L);
+    }
+
+    @Test
+    void resolveArgument_concurrentProvisioningFallsBackToExistingRow() {
+        User existing = new User();
+        existing.setId(11L);
+        when(userRepository.findByEmail("alice@example.com"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(existing));
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate email"));
+
+        assertThat(resolver.resolveArgument(null, null, request, null)).isEqualTo(11L);
+    }
+
+    private long resolveCount(String source) {
+        return meterRegistry.get("security.current_user.resolve").tag("source", source).timer().count();
+    }
+}
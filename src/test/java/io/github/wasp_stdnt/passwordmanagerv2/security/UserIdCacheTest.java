@@ -0,0 +1,70 @@
+package io.github.wasp_stdnt.passwordmanagerv2.security;
+
+import io.github.wasp_stdnt.passwordmanagerv2.cache.LocalCacheInvalidationBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserIdCacheTest {
+
+    private UserIdCache node1;
+    private UserIdCache node2;
+
+    @BeforeEach
+    void setUp() {
+        LocalCacheInvalidationBus bus = new LocalCacheInvalidationBus();
+        node1 = new UserIdCache(100, Duration.ofMinutes(5), bus);
+        node2 = new UserIdCache(100, Duration.ofMinutes(5), bus);
+        node1.put("alice@example.com", 7L);
+        node2.put("alice@example.com", 7L);
+        node2.put("bob@example.com", 8L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictionWaitsForCommitThenReachesEveryNode() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        node1.evictUserId(7L);
+        // Refilled by a concurrent request before the delete committed.
+        node1.put("alice@example.com", 7L);
+        assertThat(node2.get("alice@example.com")).isEqualTo(7L);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(node1.get("alice@example.com")).isNull();
+        assertThat(node2.get("alice@example.com")).isNull();
+        assertThat(node2.get("bob@example.com")).isEqualTo(8L);
+    }
+
+    @Test
+    void differentlyCasedSubjectsShareOneEntry() {
+        assertThat(node1.get("Alice@Example.com")).isEqualTo(7L);
+
+        node1.put("ALICE@example.com", 7L);
+        node1.evictUserId(7L);
+
+        assertThat(node1.get("alice@example.com")).isNull();
+        assertThat(node1.get("ALICE@example.com")).isNull();
+    }
+
+    @Test
+    void evictionOutsideATransactionIsImmediate() {
+        node1.evictUserId(7L);
+
+        assertThat(node1.get("alice@example.com")).isNull();
+        assertThat(node2.get("alice@example.com")).isNull();
+    }
+}
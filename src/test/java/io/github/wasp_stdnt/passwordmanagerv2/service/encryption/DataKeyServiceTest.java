@@ -0,0 +1,73 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.encryption;
+
+import io.github.wasp_stdnt.passwordmanagerv2.exception.NotFoundException;
+import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.crypto.SecretKey;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class DataKeyServiceTest {
+
+    @Autowired private DataKeyService dataKeys;
+    @Autowired private PasswordEncryptionService encryptionService;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("dek-" + UUID.randomUUID() + "@example.com");
+        user.setPasswordHash("hash");
+        userId = userRepository.save(user).getId();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(userId);
+    }
+
+    @Test
+    void getOrCreate_storesOneWrappedKeyPerUser() throws Exception {
+        assertThat(dataKeys.find(userId)).isNull();
+
+        SecretKey created = dataKeys.getOrCreate(userId);
+
+        assertThat(dataKeys.getOrCreate(userId)).isSameAs(created);
+        byte[] wrapped = userRepository.findWrappedDataKey(userId).orElseThrow();
+        assertThat(CipherEnvelope.keyId(wrapped)).isEqualTo(encryptionService.getActiveKeyId());
+        assertThat(encryptionService.unwrapDataKey(wrapped)).isEqualTo(created);
+    }
+
+    @Test
+    void getOrCreate_doesNotCacheKeyFromRolledBackTransaction() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            dataKeys.getOrCreate(userId);
+            status.setRollbackOnly();
+        });
+
+        assertThat(dataKeys.cached(userId)).isNull();
+        assertThat(dataKeys.find(userId)).isNull();
+    }
+
+    @Test
+    void getOrCreate_rejectsUnknownUser() {
+        assertThatThrownBy(() -> dataKeys.getOrCreate(Long.MAX_VALUE))
+                .isInstanceOf(NotFoundException.class);
+    }
+}
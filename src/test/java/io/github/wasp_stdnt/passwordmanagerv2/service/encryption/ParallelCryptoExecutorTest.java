@@ -0,0 +1,73 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.encryption;
+
+import io.github.wasp_stdnt.passwordmanagerv2.exception.CryptoException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ParallelCryptoExecutorTest {
+
+    private ParallelCryptoExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new ParallelCryptoExecutor(4, 64);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    void mapAll_smallInputRunsOnCallerThread() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<Integer> input = IntStream.range(0, 10).boxed().toList();
+
+        List<Integer> result = executor.mapAll(input, i -> {
+            threads.add(Thread.currentThread().getName());
+            return i * 2;
+        });
+
+        assertThat(result).containsExactlyElementsOf(input.stream().map(i -> i * 2).toList());
+        assertThat(threads).containsExactly(Thread.currentThread().getName());
+    }
+
+    @Test
+    void mapAll_largeInputRunsOnDedicatedPoolAndKeepsOrder() {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        List<Integer> input = IntStream.range(0, 5_000).boxed().toList();
+
+        List<String> result = executor.mapAll(input, i -> {
+            threads.add(Thread.currentThread().getName());
+            return "v" + i;
+        });
+
+        assertThat(result).hasSize(5_000);
+        assertThat(result.get(0)).isEqualTo("v0");
+        assertThat(result.get(4_999)).isEqualTo("v4999");
+        assertThat(threads).allMatch(name -> name.startsWith("crypto-"));
+        assertThat(threads.size()).isLessThanOrEqualTo(executor.getParallelism());
+    }
+
+    @Test
+    void mapAll_propagatesMapperFailure() {
+        List<Integer> input = IntStream.range(0, 1_000).boxed().toList();
+
+        assertThatThrownBy(() -> executor.mapAll(input, i -> {
+            if (i == 700) {
+                throw new CryptoException("Failed to decrypt password", null);
+            }
+            return i;
+        }))
+                .isInstanceOf(CryptoException.class)
+                .hasMessageContaining("Failed to decrypt password");
+    }
+}
@@ -3,11 +3,18 @@ package io.github.wasp_stdnt.passwordmanagerv2.service.encryption;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 class PasswordEncryptionServiceTest {
 
@@ -36,4 +43,150 @@ class PasswordEncryptionServiceTest {
         assertThat(data1.ciphertext()).isNotEqualTo(data2.ciphertext());
         assertThat(data1.iv()).isNotEqualTo(data2.iv());
     }
+
+    @Test
+    void sealOpen_shouldReturnOriginal() throws GeneralSecurityException {
+        byte[] envelope = encryptionService.seal("mySecretPassword!");
+
+        assertThat(envelope[0]).isEqualTo(CipherEnvelope.VERSION_2);
+        assertThat(envelope[1]).isEqualTo(CipherEnvelope.ALG_AES_CBC_PKCS5);
+        assertThat(CipherEnvelope.keyId(envelope)).isEqualTo(1);
+        assertThat(envelope).hasSize(3 + 16 + 32);
+        assertThat(encryptionService.open(envelope)).isEqualTo("mySecretPassword!");
+    }
+
+    @Test
+    void open_shouldReadEnvelopeConvertedFromLegacyColumns() throws GeneralSecurityException {
+        var legacy = encryptionService.encrypt("mySecretPassword!");
+
+        byte[] envelope = CipherEnvelope.fromLegacy(legacy.ciphertext(), legacy.iv());
+
+        assertThat(encryptionService.open(envelope)).isEqualTo("mySecretPassword!");
+    }
+
+    @Test
+    void open_shouldRejectUnknownEnvelopeVersion() throws GeneralSecurityException {
+        byte[] envelope = encryptionService.seal("mySecretPassword!");
+        envelope[0] = 99;
+
+        assertThatThrownBy(() -> encryptionService.open(envelope))
+                .isInstanceOf(GeneralSecurityException.class)
+                .hasMessageContaining("Unsupported envelope version");
+    }
+
+    @Test
+    void seal_usesActiveKeyAndOpenStillReadsOlderKeys() throws GeneralSecurityException {
+        byte[] legacyEnvelope = encryptionService.seal("mySecretPassword!");
+        String secondKey = Base64.getEncoder().encodeToString(
+                "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+        String firstKey = Base64.getEncoder().encodeToString(
+                "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+        PasswordEncryptionService rotated = new PasswordEncryptionService(firstKey, List.of("2:" + secondKey), 2);
+
+        byte[] envelope = rotated.seal("another secret");
+
+        assertThat(CipherEnvelope.keyId(envelope)).isEqualTo(2);
+        assertThat(rotated.open(envelope)).isEqualTo("another secret");
+        assertThat(rotated.open(legacyEnvelope)).isEqualTo("mySecretPassword!");
+        assertThatThrownBy(() -> encryptionService.open(envelope))
+                .isInstanceOf(GeneralSecurityException.class)
+                .hasMessageContaining("No master key with id 2");
+    }
+
+    @Test
+    void reseal_movesEnvelopeToActiveKey() throws GeneralSecurityException {
+        var legacy = encryptionService.encrypt("mySecretPassword!");
+        byte[] v1 = CipherEnvelope.fromLegacy(legacy.ciphertext(), legacy.iv());
+        String firstKey = Base64.getEncoder().encodeToString(
+                "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+        String secondKey = Base64.getEncoder().encodeToString(
+                "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+        PasswordEncryptionService rotated = new PasswordEncryptionService(firstKey, List.of(" ", "2:" + secondKey), 2);
+
+        byte[] resealed = rotated.reseal(v1);
+
+        assertThat(CipherEnvelope.keyId(v1)).isEqualTo(1);
+        assertThat(CipherEnvelope.keyId(resealed)).isEqualTo(2);
+        assertThat(rotated.open(resealed)).isEqualTo("mySecretPassword!");
+    }
+
+    @Test
+    void dataKey_sealsEntriesAndSurvivesMasterRewrap() throws GeneralSecurityException {
+        SecretKey dataKey = encryptionService.newDataKey();
+        byte[] wrapped = encryptionService.wrapDataKey(dataKey);
+        byte[] envelope = encryptionService.seal("mySecretPassword!", dataKey);
+        String firstKey = Base64.getEncoder().encodeToString(
+                "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+        String secondKey = Base64.getEncoder().encodeToString(
+                "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+        PasswordEncryptionService rotated = new PasswordEncryptionService(firstKey, List.of("2:" + secondKey), 2);
+
+        byte[] rewrapped = rotated.reseal(wrapped);
+
+        assertThat(envelope[0]).isEqualTo(CipherEnvelope.VERSION_3);
+        assertThat(envelope).hasSize(2 + 16 + 32);
+        assertThat(CipherEnvelope.keyId(rewrapped)).isEqualTo(2);
+        assertThat(rotated.open(envelope, rotated.unwrapDataKey(rewrapped))).isEqualTo("mySecretPassword!");
+        assertThatThrownBy(() -> encryptionService.open(envelope))
+                .isInstanceOf(GeneralSecurityException.class);
+    }
+
+    @Test
+    void resealWithDataKey_movesMasterSealedEnvelope() throws GeneralSecurityException {
+        SecretKey dataKey = encryptionService.newDataKey();
+
+        byte[] moved = encryptionService.reseal(encryptionService.seal("mySecretPassword!"), dataKey);
+
+        assertThat(CipherEnvelope.usesDataKey(moved)).isTrue();
+        assertThat(encryptionService.open(moved, dataKey)).isEqualTo("mySecretPassword!");
+    }
+
+    @Test
+    void constructor_rejectsActiveKeyWithoutMaterial() {
+        String firstKey = Base64.getEncoder().encodeToString(
+                "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> new PasswordEncryptionService(firstKey, List.of(), 3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PasswordEncryptionService(firstKey, List.of("1:" + firstKey), 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void byteApi_roundTripsIntoCallerProvidedBuffer() throws GeneralSecurityException {
+        byte[] plaintext = "päss→wörd".getBytes(StandardCharsets.UTF_8);
+        byte[] iv = encryptionService.newIv();
+        byte[] buffer = new byte[4 + encryptionService.ciphertextLength(plaintext.length)];
+
+        int written = encryptionService.encrypt(plaintext, iv, buffer, 4);
+
+        assertThat(written).isEqualTo(buffer.length - 4);
+        assertThat(encryptionService.decryptToString(buffer, 4, written, iv, 0)).isEqualTo("päss→wörd");
+    }
+
+    @Test
+    void encryptDecrypt_isSafeUnderConcurrentUse() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                results.add(pool.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        String plaintext = "secret-" + thread + "-" + i;
+                        var data = encryptionService.encrypt(plaintext);
+                        if (!plaintext.equals(encryptionService.decrypt(data.ciphertext(), data.iv()))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 }
@@ -1,7 +1,16 @@
 package io.github.wasp_stdnt.passwordmanagerv2.service.encryption;
 
+import io.github.wasp_stdnt.passwordmanagerv2.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -11,7 +20,12 @@ class PasswordHashServiceTest {
 
     @BeforeEach
     void setUp() {
-        passwordHashService = new PasswordHashService();
+        passwordHashService = new PasswordHashService(new BCryptPasswordEncoder(4), 2, 4, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordHashService.destroy();
     }
 
     @Test
@@ -39,4 +53,51 @@ class PasswordHashServiceTest {
 
         assertThat(passwordHashService.matches(wrong, hash)).isFalse();
     }
+
+    @Test
+    void hashPassword_whenPoolIsSaturated_shouldRejectWithRetryAfter() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordHashService saturated = new PasswordHashService(blockingEncoder(started, release),
+                1, 0, Duration.ofSeconds(3));
+        try {
+            CompletableFuture<String> inFlight = CompletableFuture.supplyAsync(() -> saturated.hashPassword("first"));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> saturated.hashPassword("second"))
+                    .isInstanceOfSatisfying(ServiceUnavailableException.class,
+                            e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(3)));
+
+            release.countDown();
+            assertThat(inFlight.get(5, TimeUnit.SECONDS)).isEqualTo("hashed-first");
+        } finally {
+            release.countDown();
+            saturated.destroy();
+        }
+    }
+
+    @Test
+    void calibrateStrength_neverGoesBelowDefaultCost() {
+        assertThat(PasswordHashService.calibrateStrength(Duration.ZERO)).isEqualTo(PasswordHashService.MIN_STRENGTH);
+    }
+
+    private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed-" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return encode(rawPassword).equals(encodedPassword);
+            }
+        };
+    }
 }
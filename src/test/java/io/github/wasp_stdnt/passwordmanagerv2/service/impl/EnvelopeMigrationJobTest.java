@@ -0,0 +1,193 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
+
+import io.github.wasp_stdnt.passwordmanagerv2.model.EnvelopeMigrationProgress;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.EnvelopeMigrationProgressRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.EnvelopeView;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.LegacyCiphertextView;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.CipherEnvelope;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.DataKeyService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class EnvelopeMigrationJobTest {
+
+    private static final String IV = Base64.getEncoder().encodeToString(new byte[16]);
+    private static final String CIPHERTEXT = Base64.getEncoder().encodeToString(new byte[32]);
+
+    @Mock private PasswordRepository passwordRepository;
+    @Mock private EnvelopeMigrationProgressRepository progressRepository;
+    @Mock private PasswordEncryptionService encryptionService;
+    @Mock private DataKeyService dataKeys;
+    @Mock private PlatformTransactionManager transactionManager;
+
+    private final Map<String, EnvelopeMigrationProgress> progress = new HashMap<>();
+    private EnvelopeMigrationJob job;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(progressRepository.lockByScan(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(progress.get(invocation.<String>getArgument(0))));
+        lenient().when(progressRepository.save(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        lenient().when(progressRepository.saveAndFlush(any())).thenAnswer(invocation -> store(invocation.getArgument(0)));
+        job = newJob(true);
+    }
+
+    @Test
+    void runPass_migratesQueuedRowsBeforeScanning() {
+        job.enqueue(5L);
+        when(passwordRepository.findLegacyByIdIn(List.of(5L))).thenReturn(List.of(legacyRow(5L)));
+        when(passwordRepository.migrateToEnvelope(eq(5L), any())).thenReturn(1);
+        when(passwordRepository.findLegacyPage(0L, Limit.of(1))).thenReturn(List.of());
+
+        job.runPass();
+
+        verify(passwordRepository).migrateToEnvelope(5L, CipherEnvelope.fromLegacy(CIPHERTEXT, IV));
+        assertThat(job.isScanComplete()).isTrue();
+    }
+
+    @Test
+    void runPass_walksLegacyRowsInKeysetChunks() {
+        when(passwordRepository.findLegacyPage(0L, Limit.of(2)))
+                .thenReturn(List.of(legacyRow(1L), legacyRow(3L)));
+        when(passwordRepository.findLegacyPage(3L, Limit.of(2))).thenReturn(List.of(legacyRow(4L)));
+        when(passwordRepository.findLegacyPage(4L, Limit.of(2))).thenReturn(List.of());
+        when(passwordRepository.migrateToEnvelope(anyLong(), any())).thenReturn(1);
+
+        job.runPass();
+        job.runPass();
+        assertThat(job.isScanComplete()).isFalse();
+        job.runPass();
+
+        verify(passwordRepository, times(3)).migrateToEnvelope(anyLong(), any());
+        assertThat(job.isScanComplete()).isTrue();
+        job.runPass();
+        verify(passwordRepository, times(3)).findLegacyPage(anyLong(), any());
+    }
+
+    @Test
+    void runPass_skipsMalformedRows() {
+        LegacyCiphertextView broken = new LegacyRow(1L, CIPHERTEXT, "%%%");
+        when(passwordRepository.findLegacyPage(0L, Limit.of(2))).thenReturn(List.of(broken, legacyRow(2L)));
+        when(passwordRepository.migrateToEnvelope(eq(2L), any())).thenReturn(1);
+
+        job.runPass();
+
+        verify(passwordRepository, never()).migrateToEnvelope(eq(1L), any());
+        verify(passwordRepository).migrateToEnvelope(eq(2L), any());
+    }
+
+    @Test
+    void runPass_movesMasterSealedRowsOntoDataKeysAfterLegacyScan() throws Exception {
+        SecretKey dataKey = new SecretKeySpec(new byte[32], "AES");
+        byte[] masterSealed = {2, 1, 1, 9};
+        byte[] dataKeySealed = {3, 1, 9};
+        EnvelopeView row = mock(EnvelopeView.class);
+        when(row.getId()).thenReturn(7L);
+        when(row.getUserId()).thenReturn(3L);
+        when(row.getEnvelope()).thenReturn(masterSealed);
+        when(passwordRepository.findLegacyPage(0L, Limit.of(2))).thenReturn(List.of());
+        when(passwordRepository.findMasterSealedPage(eq(0L), any(), eq(2))).thenReturn(List.of(row));
+        when(dataKeys.getOrCreate(3L)).thenReturn(dataKey);
+        when(encryptionService.reseal(masterSealed, dataKey)).thenReturn(dataKeySealed);
+        when(passwordRepository.replaceEnvelope(7L, masterSealed, dataKeySealed)).thenReturn(1);
+
+        job.runPass();
+
+        assertThat(job.isScanComplete()).isTrue();
+        assertThat(job.isAdoptionComplete()).isFalse();
+        verify(passwordRepository).replaceEnvelope(7L, masterSealed, dataKeySealed);
+
+        job.runPass();
+
+        verify(passwordRepository).findMasterSealedPage(eq(7L), any(), eq(2));
+        assertThat(job.isAdoptionComplete()).isTrue();
+    }
+
+    @Test
+    void disabledJobDoesNothing() {
+        EnvelopeMigrationJob disabled = newJob(false);
+        disabled.enqueue(5L);
+
+        disabled.runPass();
+
+        verifyNoInteractions(passwordRepository);
+    }
+
+    @Test
+    void restartedJobResumesFromTheCommittedCursors() {
+        when(passwordRepository.findLegacyPage(0L, Limit.of(2))).thenReturn(List.of(legacyRow(1L), legacyRow(3L)));
+        when(passwordRepository.migrateToEnvelope(anyLong(), any())).thenReturn(1);
+        job.runPass();
+        assertThat(progress.get(EnvelopeMigrationJob.LEGACY_SCAN).getLastId()).isEqualTo(3L);
+
+        EnvelopeMigrationJob restarted = newJob(true);
+        when(passwordRepository.findLegacyPage(3L, Limit.of(2))).thenReturn(List.of());
+        when(passwordRepository.findMasterSealedPage(eq(0L), any(), eq(2))).thenReturn(List.of());
+        restarted.runPass();
+
+        assertThat(restarted.isScanComplete()).isTrue();
+        assertThat(restarted.isAdoptionComplete()).isTrue();
+        assertThat(progress.get(EnvelopeMigrationJob.ADOPTION_SCAN).getCompletedAt()).isNotNull();
+
+        // Once both scans are recorded as finished, a fresh node does not walk the table again.
+        EnvelopeMigrationJob afterCompletion = newJob(true);
+        afterCompletion.runPass();
+
+        assertThat(afterCompletion.isAdoptionComplete()).isTrue();
+        verify(passwordRepository, times(2)).findLegacyPage(anyLong(), any());
+        verify(passwordRepository, times(1)).findMasterSealedPage(anyLong(), any(), anyInt());
+    }
+
+    private EnvelopeMigrationJob newJob(boolean enabled) {
+        return new EnvelopeMigrationJob(passwordRepository, progressRepository, encryptionService, dataKeys,
+                transactionManager, enabled, 2);
+    }
+
+    private EnvelopeMigrationProgress store(EnvelopeMigrationProgress scan) {
+        progress.put(scan.getScan(), scan);
+        return scan;
+    }
+
+    private static LegacyCiphertextView legacyRow(long id) {
+        return new LegacyRow(id, CIPHERTEXT, IV);
+    }
+
+    private record LegacyRow(Long id, String ciphertext, String iv) implements LegacyCiphertextView {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getCiphertext() {
+            return ciphertext;
+        }
+
+        @Override
+        public String getIv() {
+            return iv;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
+
+import io.github.wasp_stdnt.passwordmanagerv2.model.EnvelopeMigrationProgress;
+import io.github.wasp_stdnt.passwordmanagerv2.model.KeyRotationProgress;
+import io.github.wasp_stdnt.passwordmanagerv2.model.Password;
+import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.EnvelopeMigrationProgressRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.KeyRotationProgressRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.CipherEnvelope;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.ParallelCryptoExecutor;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class KeyRotationJobTest {
+
+    private static final String SECOND_KEY = Base64.getEncoder().encodeToString(
+            "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.UTF_8));
+
+    @Autowired private PasswordRepository passwordRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private KeyRotationProgressRepository progressRepository;
+    @Autowired private EnvelopeMigrationProgressRepository envelopeProgressRepository;
+    @Autowired private PasswordEncryptionService currentKeys;
+    @Autowired private ParallelCryptoExecutor cryptoExecutor;
+    @Autowired private PlatformTransactionManager transactionManager;
+    @Value("${app.encryption.key}") private String firstKey;
+
+    private PasswordEncryptionService rotatedKeys;
+    private final List<Long> userIds = new ArrayList<>();
+    private final List<Long> passwordIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws GeneralSecurityException {
+        rotatedKeys = new PasswordEncryptionService(firstKey, List.of("2:" + SECOND_KEY), 2);
+        for (int i = 0; i < 5; i++) {
+            SecretKey dataKey = currentKeys.newDataKey();
+            User user = new User();
+            user.setEmail("rotation-" + i + "@example.com");
+            user.setPasswordHash("hash");
+            user.setWrappedDataKey(currentKeys.wrapDataKey(dataKey));
+            user = userRepository.save(user);
+            userIds.add(user.getId());
+            Password password = new Password();
+            password.setUser(user);
+            password.setService("service-" + i);
+            password.setCredential("alice@example.com");
+            password.setEnvelope(currentKeys.seal("secret-" + i, dataKey));
+            passwordIds.add(passwordRepository.save(password).getId());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        progressRepository.deleteAll();
+        envelopeProgressRepository.deleteAll();
+        passwordRepository.deleteAll();
+        userRepository.deleteAllById(userIds);
+    }
+
+    @Test
+    void rewrapsDataKeysInChunksAndResumesAfterRestart() throws GeneralSecurityException {
+        // A key some other node already rewrapped is left alone.
+        User rewrapped = userRepository.findById(userIds.get(4)).orElseThrow();
+        rewrapped.setWrappedDataKey(rotatedKeys.reseal(rewrapped.getWrappedDataKey()));
+        byte[] alreadyRotated = userRepository.save(rewrapped).getWrappedDataKey();
+        List<byte[]> envelopesBefore = passwordRepository.findAllById(passwordIds).stream()
+                .map(Password::getEnvelope)
+                .toList();
+
+        assertThat(newJob().rotateNextChunk()).isBetween(1, 2);
+        KeyRotationProgress afterFirstChunk = progressRepository.findById(2).orElseThrow();
+        assertThat(afterFirstChunk.getLastId()).isPositive();
+        assertThat(afterFirstChunk.getCompletedAt()).isNull();
+
+        KeyRotationJob restarted = newJob();
+        int chunk;
+        while ((chunk = restarted.rotateNextChunk()) >= 0) {
+            assertThat(chunk).isLessThanOrEqualTo(2);
+        }
+
+        // Master-sealed rows still need the old key until the envelope migration has adopted them.
+        assertThat(restarted.isComplete()).isFalse();
+        EnvelopeMigrationProgress adoption = new EnvelopeMigrationProgress();
+        adoption.setScan(EnvelopeMigrationJob.ADOPTION_SCAN);
+        adoption.setLastId(passwordIds.get(passwordIds.size() - 1));
+        adoption.setCompletedAt(Instant.now());
+        envelopeProgressRepository.save(adoption);
+        assertThat(restarted.isComplete()).isTrue();
+        // Completion comes from the progress rows, so a node that never runs a pass reports it as well.
+        assertThat(new KeyRotationJob(userRepository, progressRepository, rotatedKeys, cryptoExecutor,
+                envelopeProgressRepository, transactionManager, false, 2).isComplete()).isTrue();
+        KeyRotationProgress progress = progressRepository.findById(2).orElseThrow();
+        assertThat(progress.getRotated()).isGreaterThanOrEqualTo(4);
+        assertThat(progress.getCompletedAt()).isNotNull();
+        for (int i = 0; i < userIds.size(); i++) {
+            byte[] wrapped = userRepository.findById(userIds.get(i)).orElseThrow().getWrappedDataKey();
+            assertThat(CipherEnvelope.keyId(wrapped)).isEqualTo(2);
+            Password password = passwordRepository.findById(passwordIds.get(i)).orElseThrow();
+            // Rows are never rewritten; only the small wrapped key changed.
+            assertThat(password.getEnvelope()).isEqualTo(envelopesBefore.get(i));
+            assertThat(rotatedKeys.open(password.getEnvelope(), rotatedKeys.unwrapDataKey(wrapped)))
+                    .isEqualTo("secret-" + i);
+        }
+        assertThat(userRepository.findById(userIds.get(4)).orElseThrow().getWrappedDataKey()).isEqualTo(alreadyRotated);
+        assertThat(newJob().rotateNextChunk()).isEqualTo(-1);
+    }
+
+    private KeyRotationJob newJob() {
+        return new KeyRotationJob(userRepository, progressRepository, rotatedKeys, cryptoExecutor,
+                envelopeProgressRepository, transactionManager, true, 2);
+    }
+}
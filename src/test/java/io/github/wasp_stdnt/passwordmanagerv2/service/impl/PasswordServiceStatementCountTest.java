@@ -0,0 +1,292 @@
+package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
+
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordWriteDto;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.BadRequestException;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.NotFoundException;
+import io.github.wasp_stdnt.passwordmanagerv2.model.Password;
+import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.service.PasswordService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.DataKeyService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class PasswordServiceStatementCountTest {
+
+    @Autowired private PasswordService passwordService;
+    @Autowired private PasswordRepository passwordRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private DataKeyService dataKeys;
+
+    private Statistics statistics;
+    private Long userId;
+    private Long otherUserId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        userId = saveUser("owner@example.com");
+        otherUserId = saveUser("other@example.com");
+        // Data keys are created once per user on first write; the counts below are for steady state.
+        dataKeys.getOrCreate(userId);
+        dataKeys.getOrCreate(otherUserId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        passwordRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void createPassword_runsOneInsert() {
+        statistics.clear();
+        PasswordResponseDto created = passwordService.createPassword(userId, write("Gmail"));
+
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        // plus the vault version bump and read, and a sequence call at most once per 50 ids
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(4);
+        assertThat(created.getId()).isNotNull();
+        assertThat(created.getPassword()).isEqualTo("secret-Gmail");
+    }
+
+    @Test
+    void importPasswords_batchesInserts() {
+        List<PasswordWriteDto> entries = IntStream.range(0, 120)
+                .mapToObj(i -> write("service-" + i))
+                .collect(Collectors.toList());
+
+        statistics.clear();
+        PasswordImportResultDto result = passwordService.importPasswords(userId, entries);
+
+        assertThat(result.getImported()).isEqualTo(120);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        // three batches of 50, at most one sequence call per 50 ids, one vault version bump and read
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(8);
+        assertThat(passwordRepository.findAllByUserId(userId)).hasSize(120);
+    }
+
+    @Test
+    void createPassword_unknownUserIsNotFound() {
+        assertThatThrownBy(() -> passwordService.createPassword(Long.MAX_VALUE, write("Gmail")))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("User not found");
+    }
+
+    @Test
+    void readEndpoints_runOneStatementEach() {
+        Long id = passwordService.createPassword(userId, write("Gmail")).getId();
+        passwordService.createPassword(userId, write("GitHub"));
+
+        assertThat(statementsFor(1, () -> passwordService.getPassword(userId, id)).getPassword())
+                .isEqualTo("secret-Gmail");
+        assertThat(statementsFor(1, () -> passwordService.listPasswords(userId))).hasSize(2);
+        assertThat(statementsFor(1, () -> passwordService.listPasswordPage(userId, null, 10)).getItems()).hasSize(2);
+        assertThat(statementsFor(1, () -> passwordService.listPasswordMetadata(userId, null, 10)).getItems()).hasSize(2);
+        List<PasswordResponseDto> exported = new ArrayList<>();
+        statementsFor(1, () -> {
+            passwordService.exportPasswords(userId, exported::add);
+            return null;
+        });
+        assertThat(exported).extracting(PasswordResponseDto::getPassword).containsExactly("secret-Gmail", "secret-GitHub");
+    }
+
+    @Test
+    void searchMatchesServiceOrCredentialIgnoringCaseInOneStatement() {
+        passwordService.createPassword(userId, write("GitHub"));
+        passwordService.createPassword(userId, write("Gmail"));
+        passwordService.createPassword(userId, PasswordWriteDto.builder()
+                .service("Work VPN").credential("github-bot").password("secret").build());
+        passwordService.createPassword(otherUserId, write("GitHub Enterprise"));
+
+        CursorPageDto<PasswordMetadataDto> page = statementsFor(1,
+                () -> passwordService.searchPasswordMetadata(userId, "  GITHUB ", false, null, 10));
+
+        assertThat(page.getItems()).extracting(PasswordMetadataDto::getService).containsExactly("GitHub", "Work VPN");
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(passwordService.searchPasswordMetadata(userId, "hub", false, null, 10).getItems()).hasSize(2);
+        assertThat(passwordService.searchPasswordMetadata(userId, "hub", true, null, 10).getItems()).isEmpty();
+        assertThat(passwordService.searchPasswordMetadata(userId, "g", true, null, 10).getItems())
+                .extracting(PasswordMetadataDto::getService).containsExactly("GitHub", "Gmail", "Work VPN");
+    }
+
+    @Test
+    void searchPagesWithCursorAndTreatsWildcardsLiterally() {
+        for (int i = 0; i < 5; i++) {
+            passwordService.createPassword(userId, write("shop-" + i));
+        }
+        passwordService.createPassword(userId, write("100% cotton"));
+
+        CursorPageDto<PasswordMetadataDto> first = passwordService.searchPasswordMetadata(userId, "shop", false, null, 3);
+        CursorPageDto<PasswordMetadataDto> second =
+                passwordService.searchPasswordMetadata(userId, "shop", false, first.getNextCursor(), 3);
+
+        assertThat(first.getItems()).extracting(PasswordMetadataDto::getService)
+                .containsExactly("shop-0", "shop-1", "shop-2");
+        assertThat(second.getItems()).extracting(PasswordMetadataDto::getService).containsExactly("shop-3", "shop-4");
+        assertThat(second.getNextCursor()).isNull();
+        assertThat(passwordService.searchPasswordMetadata(userId, "%", false, null, 10).getItems())
+                .extracting(PasswordMetadataDto::getService).containsExactly("100% cotton");
+        assertThat(passwordService.searchPasswordMetadata(userId, "shop_", false, null, 10).getItems()).isEmpty();
+    }
+
+    @Test
+    void searchRejectsBlankOrOverlongQueries() {
+        assertThatThrownBy(() -> passwordService.searchPasswordMetadata(userId, " ", false, null, 10))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> passwordService.searchPasswordMetadata(userId, null, false, null, 10))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> passwordService.searchPasswordMetadata(userId,
+                "x".repeat(PasswordService.MAX_QUERY_LENGTH + 1), false, null, 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void firstMetadataPageIsServedFromCacheUntilTheNextWrite() {
+        Long id = passwordService.createPassword(userId, write("Gmail")).getId();
+
+        statementsFor(1, () -> passwordService.listPasswordMetadata(userId, null, PasswordService.DEFAULT_PAGE_SIZE));
+        statementsFor(0, () -> passwordService.listPasswordMetadata(userId, null, PasswordService.DEFAULT_PAGE_SIZE));
+
+        passwordService.updatePassword(userId, id, write("Google"));
+
+        assertThat(statementsFor(1, () -> passwordService.listPasswordMetadata(userId, null, PasswordService.DEFAULT_PAGE_SIZE))
+                .getItems()).extracting(PasswordMetadataDto::getService).containsExactly("Google");
+    }
+
+    @Test
+    void updatePassword_runsOneStatementAndClearsLegacyColumns() {
+        Long id = passwordService.createPassword(userId, write("Gmail")).getId();
+
+        // the update plus the vault version bump and read
+        statementsFor(3, () -> passwordService.updatePassword(userId, id, write("Google")));
+
+        Password stored = passwordRepository.findById(id).orElseThrow();
+        assertThat(stored.getService()).isEqualTo("Google");
+        assertThat(stored.getCiphertext()).isNull();
+        assertThat(stored.getUpdatedAt()).isAfterOrEqualTo(stored.getCreatedAt());
+        assertThat(passwordService.getPassword(userId, id).getPassword()).isEqualTo("secret-Google");
+    }
+
+    @Test
+    void deletePassword_runsOneStatement() {
+        Long id = passwordService.createPassword(userId, write("Gmail")).getId();
+
+        // the delete and its tombstone plus the vault version bump and read
+        statementsFor(4, () -> {
+            passwordService.deletePassword(userId, id);
+            return null;
+        });
+
+        assertThat(passwordRepository.existsById(id)).isFalse();
+    }
+
+    @Test
+    void ownershipIsCheckedInTheSameStatement() {
+        Long id = passwordService.createPassword(userId, write("Gmail")).getId();
+
+        statistics.clear();
+        assertThatThrownBy(() -> passwordService.getPassword(otherUserId, id)).isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> passwordService.updatePassword(otherUserId, id, write("Google")))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> passwordService.deletePassword(otherUserId, id)).isInstanceOf(NotFoundException.class);
+        // one lookup, then the update and the delete after their vault version bump and read
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(7);
+        assertThat(passwordService.getPassword(userId, id).getService()).isEqualTo("Gmail");
+    }
+
+    @Test
+    void vaultVersionIsOneLookupAndGrowsWithEveryWrite() {
+        long initial = statementsFor(1, () -> passwordService.getVaultVersion(userId));
+
+        Long id = passwordService.createPassword(userId, write("Gmail")).getId();
+        passwordService.importPasswords(userId, List.of(write("GitHub"), write("Bank")));
+        passwordService.updatePassword(userId, id, write("Google"));
+        passwordService.deletePassword(userId, id);
+        assertThatThrownBy(() -> passwordService.deletePassword(userId, id)).isInstanceOf(NotFoundException.class);
+
+        assertThat(passwordService.getVaultVersion(userId)).isEqualTo(initial + 4);
+        assertThat(passwordService.getVaultVersion(otherUserId)).isZero();
+    }
+
+    @Test
+    void changesCarryOnlyWhatHappenedSinceTheToken() {
+        Long kept = passwordService.createPassword(userId, write("Gmail")).getId();
+        Long removed = passwordService.createPassword(userId, write("Bank")).getId();
+        passwordService.deletePassword(userId, passwordService.createPassword(userId, write("Old")).getId());
+
+        PasswordChangesDto initial = passwordService.listChanges(userId, null, 10);
+        assertThat(initial.getUpserts()).extracting(PasswordResponseDto::getService).containsExactly("Gmail", "Bank");
+        assertThat(initial.getDeletedIds()).isEmpty();
+        assertThat(initial.isHasMore()).isFalse();
+
+        // nothing changed: the version lookup and two empty index range scans, no decryption
+        PasswordChangesDto idle = statementsFor(3, () -> passwordService.listChanges(userId, initial.getSyncToken(), 10));
+        assertThat(idle.getUpserts()).isEmpty();
+        assertThat(idle.getDeletedIds()).isEmpty();
+
+        passwordService.updatePassword(userId, kept, write("Google"));
+        passwordService.deletePassword(userId, removed);
+        Long added = passwordService.createPassword(userId, write("GitHub")).getId();
+        passwordService.createPassword(otherUserId, write("Elsewhere"));
+
+        PasswordChangesDto first = passwordService.listChanges(userId, idle.getSyncToken(), 2);
+        assertThat(first.getUpserts()).extracting(PasswordResponseDto::getPassword).containsExactly("secret-Google");
+        assertThat(first.getDeletedIds()).containsExactly(removed);
+        assertThat(first.isHasMore()).isTrue();
+        PasswordChangesDto rest = passwordService.listChanges(userId, first.getSyncToken(), 2);
+        assertThat(rest.getUpserts()).extracting(PasswordResponseDto::getId).containsExactly(added);
+        assertThat(rest.getDeletedIds()).isEmpty();
+        assertThat(rest.isHasMore()).isFalse();
+
+        assertThatThrownBy(() -> passwordService.listChanges(userId, "bm9wZQ", 10))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    private <T> T statementsFor(long expected, Supplier<T> call) {
+        statistics.clear();
+        T result = call.get();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(expected);
+        return result;
+    }
+
+    private Long saveUser(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPasswordHash("hash");
+        return userRepository.save(user).getId();
+    }
+
+    private static PasswordWriteDto write(String service) {
+        return PasswordWriteDto.builder()
+                .service(service)
+                .credential("alice@example.com")
+                .password("secret-" + service)
+                .build();
+    }
+}
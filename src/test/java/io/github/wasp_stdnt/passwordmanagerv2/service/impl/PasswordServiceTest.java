@@ -1,12 +1,25 @@
 package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
 
+import io.github.wasp_stdnt.passwordmanagerv2.dto.CursorPageDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordChangesDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportItemDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordImportResultDto;
+import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordMetadataDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordResponseDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.PasswordWriteDto;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
+import io.github.wasp_stdnt.passwordmanagerv2.exception.BadRequestException;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.NotFoundException;
 import io.github.wasp_stdnt.passwordmanagerv2.model.Password;
+import io.github.wasp_stdnt.passwordmanagerv2.model.PasswordTombstone;
 import io.github.wasp_stdnt.passwordmanagerv2.model.User;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordExportView;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordMetadataView;
 import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.repository.PasswordTombstoneRepository;
 import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.DataKeyService;
+import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.ParallelCryptoExecutor;
 import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordEncryptionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,12 +27,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
 import java.security.GeneralSecurityException;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,8 +51,13 @@ import static org.mockito.Mockito.*;
 class PasswordServiceImplTest {
 
     @Mock private PasswordRepository passwordRepository;
+    @Mock private PasswordTombstoneRepository tombstoneRepository;
     @Mock private UserRepository userRepository;
     @Mock private PasswordEncryptionService encryptionService;
+    @Mock private DataKeyService dataKeys;
+    @Spy private ParallelCryptoExecutor cryptoExecutor = new ParallelCryptoExecutor(2, 64);
+    @Mock private EnvelopeMigrationJob envelopeMigrationJob;
+    @Mock private VaultEventBus vaultEvents;
     @InjectMocks private PasswordServiceImpl passwordService;
 
     private User user;
@@ -37,8 +65,16 @@ class PasswordServiceImplTest {
     private PasswordWriteDto updateDto;
     private Password samplePw;
 
+    private static final byte[] ENVELOPE = {1, 1, 7, 7, 7};
+    private static final byte[] NEW_ENVELOPE = {1, 1, 8, 8, 8};
+    private static final SecretKey DATA_KEY = new SecretKeySpec(new byte[32], "AES");
+    private static final long VAULT_VERSION = 7L;
+
     @BeforeEach
     void setUp() {
+        lenient().when(dataKeys.find(1L)).thenReturn(DATA_KEY);
+        lenient().when(dataKeys.getOrCreate(1L)).thenReturn(DATA_KEY);
+        lenient().when(userRepository.findVaultVersion(1L)).thenReturn(Optional.of(VAULT_VERSION));
         user = new User();
         user.setId(1L);
 
@@ -58,27 +94,22 @@ class PasswordServiceImplTest {
         samplePw.setId(2L);
         samplePw.setService("Gmail");
         samplePw.setCredential("alice@gmail.com");
-        samplePw.setCiphertext("cipher");
-        samplePw.setIv("iv");
+        samplePw.setEnvelope(ENVELOPE);
         samplePw.setUser(user);
     }
 
     @Test
     void createPassword_success() throws GeneralSecurityException {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        PasswordEncryptionService.EncryptedData data =
-                new PasswordEncryptionService.EncryptedData("cipher", "iv");
-        when(encryptionService.encrypt("secret")).thenReturn(data);
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(encryptionService.seal("secret", DATA_KEY)).thenReturn(ENVELOPE);
 
         Password saved = new Password();
         saved.setId(2L);
         saved.setService("Gmail");
         saved.setCredential("alice@gmail.com");
-        saved.setCiphertext("cipher");
-        saved.setIv("iv");
+        saved.setEnvelope(ENVELOPE);
         saved.setUser(user);
-        when(passwordRepository.save(any())).thenReturn(saved);
-        when(encryptionService.decrypt("cipher", "iv")).thenReturn("secret");
+        when(passwordRepository.saveAndFlush(any())).thenReturn(saved);
 
         PasswordResponseDto result = passwordService.createPassword(1L, createDto);
 
@@ -86,22 +117,95 @@ class PasswordServiceImplTest {
         assertThat(result.getService()).isEqualTo("Gmail");
         assertThat(result.getCredential()).isEqualTo("alice@gmail.com");
         assertThat(result.getPassword()).isEqualTo("secret");
-        verify(passwordRepository).save(any(Password.class));
+        ArgumentCaptor<Password> stored = ArgumentCaptor.forClass(Password.class);
+        verify(passwordRepository).saveAndFlush(stored.capture());
+        assertThat(stored.getValue().getChangeVersion()).isEqualTo(VAULT_VERSION);
+        verify(userRepository).bumpVaultVersion(1L);
+        verify(encryptionService, never()).open(any(), any());
+        verify(userRepository, never()).findById(any());
     }
 
     @Test
-    void createPassword_userNotFound() {
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+    void createPassword_userNotFound() throws GeneralSecurityException {
+        when(encryptionService.seal("secret", DATA_KEY)).thenReturn(ENVELOPE);
+        when(userRepository.findVaultVersion(1L)).thenReturn(Optional.empty());
         assertThatThrownBy(() -> passwordService.createPassword(1L, createDto))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessage("User not found");
+        verify(passwordRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void createPassword_constraintViolationIsNotReportedAsAMissingUser() throws GeneralSecurityException {
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(encryptionService.seal("secret", DATA_KEY)).thenReturn(ENVELOPE);
+        when(passwordRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("ck_passwords"));
+        assertThatThrownBy(() -> passwordService.createPassword(1L, createDto))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void importPasswords_storesValidEntriesAndReportsRejectedOnes() throws GeneralSecurityException {
+        PasswordWriteDto blankService = PasswordWriteDto.builder()
+                .service(" ")
+                .credential("bob")
+                .password("pw")
+                .build();
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(encryptionService.seal(any(), eq(DATA_KEY))).thenReturn(ENVELOPE);
+        when(passwordRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Password> entities = invocation.getArgument(0);
+            for (int i = 0; i < entities.size(); i++) {
+                entities.get(i).setId(10L + i);
+            }
+            return entities;
+        });
+
+        PasswordImportResultDto result =
+                passwordService.importPasswords(1L, List.of(createDto, blankService, updateDto));
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getItems()).extracting(PasswordImportItemDto::getIndex).containsExactly(0, 1, 2);
+        assertThat(result.getItems()).extracting(PasswordImportItemDto::getId).containsExactly(10L, null, 11L);
+        assertThat(result.getItems().get(1).getError()).isEqualTo("service must not be blank");
+        verify(encryptionService, times(2)).seal(any(), any());
+    }
+
+    @Test
+    void importPasswords_constraintViolationIsNotReportedAsAMissingUser() throws GeneralSecurityException {
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(encryptionService.seal(any(), eq(DATA_KEY))).thenReturn(ENVELOPE);
+        when(passwordRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("ck_passwords"));
+
+        assertThatThrownBy(() -> passwordService.importPasswords(1L, List.of(createDto, updateDto)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void importPasswords_userNotFound() throws GeneralSecurityException {
+        when(encryptionService.seal(any(), eq(DATA_KEY))).thenReturn(ENVELOPE);
+        when(userRepository.findVaultVersion(1L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> passwordService.importPasswords(1L, List.of(createDto)))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("User not found");
+        verify(passwordRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void importPasswords_rejectsOversizedRequest() {
+        List<PasswordWriteDto> entries = Collections.nCopies(5001, createDto);
+
+        assertThatThrownBy(() -> passwordService.importPasswords(1L, entries))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(passwordRepository, encryptionService);
     }
 
     @Test
     void listPasswords_success() throws GeneralSecurityException {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(passwordRepository.findByUser(user)).thenReturn(List.of(samplePw));
-        when(encryptionService.decrypt("cipher", "iv")).thenReturn("secret");
+        when(passwordRepository.findAllByUserId(1L)).thenReturn(List.of(samplePw));
+        when(encryptionService.open(ENVELOPE, DATA_KEY)).thenReturn("secret");
 
         List<PasswordResponseDto> list = passwordService.listPasswords(1L);
 
@@ -111,11 +215,102 @@ class PasswordServiceImplTest {
         assertThat(dto.getPassword()).isEqualTo("secret");
     }
 
+    @Test
+    void exportPasswords_writesEachRowAndClosesTheStream() throws GeneralSecurityException {
+        PasswordExportView sealed = mock(PasswordExportView.class);
+        when(sealed.getId()).thenReturn(2L);
+        when(sealed.getService()).thenReturn("Gmail");
+        when(sealed.getEnvelope()).thenReturn(ENVELOPE);
+        PasswordExportView legacy = mock(PasswordExportView.class);
+        when(legacy.getId()).thenReturn(3L);
+        when(legacy.getCiphertext()).thenReturn("cipher");
+        when(legacy.getIv()).thenReturn("iv");
+        AtomicBoolean closed = new AtomicBoolean();
+        when(passwordRepository.streamExportByUserId(1L))
+                .thenReturn(Stream.of(sealed, legacy).onClose(() -> closed.set(true)));
+        when(encryptionService.open(ENVELOPE, DATA_KEY)).thenReturn("secret");
+        when(encryptionService.decrypt("cipher", "iv")).thenReturn("legacy");
+
+        List<PasswordResponseDto> written = new ArrayList<>();
+        passwordService.exportPasswords(1L, written::add);
+
+        assertThat(written).extracting(PasswordResponseDto::getPassword).containsExactly("secret", "legacy");
+        assertThat(written.get(0).getService()).isEqualTo("Gmail");
+        assertThat(closed).isTrue();
+        verify(envelopeMigrationJob).enqueue(3L);
+    }
+
+    @Test
+    void listPasswordPage_returnsCursorWhenMoreRowsExist() throws GeneralSecurityException {
+        Password second = new Password();
+        second.setId(3L);
+        second.setEnvelope(ENVELOPE);
+        when(passwordRepository.findPageByUserId(1L, 0L, Limit.of(2)))
+                .thenReturn(List.of(samplePw, second));
+        when(encryptionService.open(ENVELOPE, DATA_KEY)).thenReturn("secret");
+
+        CursorPageDto<PasswordResponseDto> page = passwordService.listPasswordPage(1L, null, 1);
+
+        assertThat(page.getItems()).extracting(PasswordResponseDto::getId).containsExactly(2L);
+        assertThat(page.getNextCursor()).isEqualTo(PageCursor.encode(2L));
+    }
+
+    @Test
+    void listPasswordPage_continuesAfterCursorAndEndsOnLastPage() throws GeneralSecurityException {
+        when(passwordRepository.findPageByUserId(1L, 1L, Limit.of(11)))
+                .thenReturn(List.of(samplePw));
+        when(encryptionService.open(ENVELOPE, DATA_KEY)).thenReturn("secret");
+
+        CursorPageDto<PasswordResponseDto> page =
+                passwordService.listPasswordPage(1L, PageCursor.encode(1L), 10);
+
+        assertThat(page.getItems()).hasSize(1);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void listPasswordPage_rejectsMalformedCursor() {
+        assertThatThrownBy(() -> passwordService.listPasswordPage(1L, "not-a-cursor", 10))
+                .isInstanceOf(BadRequestException.class)
+                .hasMessage("Invalid cursor");
+        verifyNoInteractions(passwordRepository);
+    }
+
+    @Test
+    void listPasswordPage_rejectsLimitAboveMaximum() {
+        assertThatThrownBy(() -> passwordService.listPasswordPage(1L, null, 201))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(passwordRepository);
+    }
+
+    @Test
+    void listPasswordMetadata_neverDecrypts() {
+        Instant created = Instant.parse("2025-06-01T12:00:00Z");
+        PasswordMetadataView view = mock(PasswordMetadataView.class);
+        when(view.getId()).thenReturn(2L);
+        when(view.getService()).thenReturn("Gmail");
+        when(view.getCredential()).thenReturn("alice@gmail.com");
+        when(view.getCreatedAt()).thenReturn(created);
+        when(view.getUpdatedAt()).thenReturn(created);
+        when(passwordRepository.findMetadataPageByUserId(1L, 0L, Limit.of(51)))
+                .thenReturn(List.of(view));
+
+        CursorPageDto<PasswordMetadataDto> page = passwordService.listPasswordMetadata(1L, null, 50);
+
+        assertThat(page.getItems()).hasSize(1);
+        PasswordMetadataDto dto = page.getItems().get(0);
+        assertThat(dto.getId()).isEqualTo(2L);
+        assertThat(dto.getService()).isEqualTo("Gmail");
+        assertThat(dto.getCredential()).isEqualTo("alice@gmail.com");
+        assertThat(dto.getCreatedAt()).isEqualTo(created);
+        assertThat(page.getNextCursor()).isNull();
+        verifyNoInteractions(encryptionService);
+    }
+
     @Test
     void getPassword_success() throws GeneralSecurityException {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(passwordRepository.findByIdAndUser(2L, user)).thenReturn(Optional.of(samplePw));
-        when(encryptionService.decrypt("cipher", "iv")).thenReturn("secret");
+        when(passwordRepository.findByIdAndUserId(2L, 1L)).thenReturn(Optional.of(samplePw));
+        when(encryptionService.open(ENVELOPE, DATA_KEY)).thenReturn("secret");
 
         PasswordResponseDto dto = passwordService.getPassword(1L, 2L);
 
@@ -126,8 +321,7 @@ class PasswordServiceImplTest {
 
     @Test
     void getPassword_notFound() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(passwordRepository.findByIdAndUser(2L, user)).thenReturn(Optional.empty());
+        when(passwordRepository.findByIdAndUserId(2L, 1L)).thenReturn(Optional.empty());
 
         assertThatThrownBy(() -> passwordService.getPassword(1L, 2L))
                 .isInstanceOf(NotFoundException.class)
@@ -136,42 +330,114 @@ class PasswordServiceImplTest {
 
     @Test
     void updatePassword_success() throws GeneralSecurityException {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(passwordRepository.findByIdAndUser(2L, user)).thenReturn(Optional.of(samplePw));
-        PasswordEncryptionService.EncryptedData data =
-                new PasswordEncryptionService.EncryptedData("newCipher", "newIv");
-        when(encryptionService.encrypt("newsecret")).thenReturn(data);
-
-        samplePw.setService("Google");
-        samplePw.setCredential("alice.new@gmail.com");
-        samplePw.setCiphertext("newCipher");
-        samplePw.setIv("newIv");
-        when(passwordRepository.save(samplePw)).thenReturn(samplePw);
-        when(encryptionService.decrypt("newCipher", "newIv")).thenReturn("newsecret");
+        when(encryptionService.seal("newsecret", DATA_KEY)).thenReturn(NEW_ENVELOPE);
+        when(passwordRepository.updateByIdAndUserId(eq(2L), eq(1L), eq("Google"),
+                eq("alice.new@gmail.com"), eq(NEW_ENVELOPE), any(Instant.class), eq(VAULT_VERSION))).thenReturn(1);
 
         PasswordResponseDto dto = passwordService.updatePassword(1L, 2L, updateDto);
 
+        assertThat(dto.getId()).isEqualTo(2L);
         assertThat(dto.getService()).isEqualTo("Google");
         assertThat(dto.getPassword()).isEqualTo("newsecret");
+        verify(passwordRepository, never()).save(any());
+        verify(encryptionService, never()).open(any(), any());
+    }
+
+    @Test
+    void updatePassword_notFound() throws GeneralSecurityException {
+        when(encryptionService.seal("newsecret", DATA_KEY)).thenReturn(NEW_ENVELOPE);
+        when(passwordRepository.updateByIdAndUserId(eq(2L), eq(1L), any(), any(), any(), any(), anyLong()))
+                .thenReturn(0);
+
+        assertThatThrownBy(() -> passwordService.updatePassword(1L, 2L, updateDto))
+                .isInstanceOf(NotFoundException.class)
+                .hasMessage("Password not found");
+    }
+
+    @Test
+    void getPassword_legacyRowIsDecryptedAndQueuedForMigration() throws GeneralSecurityException {
+        samplePw.setEnvelope(null);
+        samplePw.setCiphertext("cipher");
+        samplePw.setIv("iv");
+        when(passwordRepository.findByIdAndUserId(2L, 1L)).thenReturn(Optional.of(samplePw));
+        when(encryptionService.decrypt("cipher", "iv")).thenReturn("secret");
+
+        PasswordResponseDto dto = passwordService.getPassword(1L, 2L);
+
+        assertThat(dto.getPassword()).isEqualTo("secret");
+        verify(envelopeMigrationJob).enqueue(2L);
     }
 
     @Test
     void deletePassword_success() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(passwordRepository.existsByIdAndUser(2L, user)).thenReturn(true);
+        when(passwordRepository.deleteByIdAndUserId(2L, 1L)).thenReturn(1);
 
         passwordService.deletePassword(1L, 2L);
 
-        verify(passwordRepository).deleteByIdAndUser(2L, user);
+        verify(passwordRepository).deleteByIdAndUserId(2L, 1L);
+        verify(userRepository).bumpVaultVersion(1L);
+        verify(tombstoneRepository).insert(eq(2L), eq(1L), eq(VAULT_VERSION), any(Instant.class));
+        verify(vaultEvents).publish(1L, VAULT_VERSION);
     }
 
     @Test
     void deletePassword_notFound() {
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(passwordRepository.existsByIdAndUser(2L, user)).thenReturn(false);
+        when(passwordRepository.deleteByIdAndUserId(2L, 1L)).thenReturn(0);
 
         assertThatThrownBy(() -> passwordService.deletePassword(1L, 2L))
                 .isInstanceOf(NotFoundException.class)
                 .hasMessage("Password not found");
+        verifyNoInteractions(tombstoneRepository);
+    }
+
+    @Test
+    void listChanges_mergesUpsertsAndDeletionsInChangeOrder() throws GeneralSecurityException {
+        samplePw.setChangeVersion(3L);
+        Password later = new Password();
+        later.setId(9L);
+        later.setEnvelope(ENVELOPE);
+        later.setChangeVersion(6L);
+        PasswordTombstone deleted = new PasswordTombstone();
+        deleted.setPasswordId(4L);
+        deleted.setChangeVersion(5L);
+        SyncToken since = new SyncToken(2L, Long.MAX_VALUE, -1L);
+        when(passwordRepository.findChangedPage(1L, 2L, Long.MAX_VALUE, VAULT_VERSION, Limit.of(3)))
+                .thenReturn(List.of(samplePw, later));
+        when(tombstoneRepository.findChangedPage(1L, 2L, Long.MAX_VALUE, VAULT_VERSION, Limit.of(3)))
+                .thenReturn(List.of(deleted));
+        when(encryptionService.open(ENVELOPE, DATA_KEY)).thenReturn("secret");
+
+        PasswordChangesDto changes = passwordService.listChanges(1L, since.encode(), 2);
+
+        assertThat(changes.getUpserts()).extracting(PasswordResponseDto::getId).containsExactly(2L);
+        assertThat(changes.getDeletedIds()).containsExactly(4L);
+        assertThat(changes.isHasMore()).isTrue();
+        assertThat(changes.getSyncToken()).isEqualTo(new SyncToken(5L, 4L, -1L).encode());
+    }
+
+    @Test
+    void listChanges_initialSyncSkipsOlderTombstonesAndEndsAtTheVaultVersion() throws GeneralSecurityException {
+        when(passwordRepository.findChangedPage(1L, -1L, Long.MAX_VALUE, VAULT_VERSION, Limit.of(51)))
+                .thenReturn(List.of(samplePw));
+        when(tombstoneRepository.findChangedPage(1L, VAULT_VERSION, Long.MAX_VALUE, VAULT_VERSION, Limit.of(51)))
+                .thenReturn(List.of());
+        when(encryptionService.open(ENVELOPE, DATA_KEY)).thenReturn("secret");
+
+        PasswordChangesDto changes = passwordService.listChanges(1L, null, 50);
+
+        assertThat(changes.getUpserts()).extracting(PasswordResponseDto::getPassword).containsExactly("secret");
+        assertThat(changes.getDeletedIds()).isEmpty();
+        assertThat(changes.isHasMore()).isFalse();
+        assertThat(changes.getSyncToken())
+                .isEqualTo(new SyncToken(VAULT_VERSION, Long.MAX_VALUE, VAULT_VERSION).encode());
+    }
+
+    @Test
+    void listChanges_rejectsTokenAheadOfTheVault() {
+        String ahead = new SyncToken(VAULT_VERSION + 1, 0L, -1L).encode();
+
+        assertThatThrownBy(() -> passwordService.listChanges(1L, ahead, 50))
+                .isInstanceOf(BadRequestException.class);
+        verifyNoInteractions(passwordRepository, tombstoneRepository);
     }
 }
@@ -2,10 +2,12 @@ package io.github.wasp_stdnt.passwordmanagerv2.service.impl;
 
 import io.github.wasp_stdnt.passwordmanagerv2.dto.UserRegistrationDto;
 import io.github.wasp_stdnt.passwordmanagerv2.dto.UserResponseDto;
+import io.github.wasp_stdnt.passwordmanagerv2.events.VaultEventBus;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.ConflictException;
 import io.github.wasp_stdnt.passwordmanagerv2.exception.NotFoundException;
 import io.github.wasp_stdnt.passwordmanagerv2.model.User;
 import io.github.wasp_stdnt.passwordmanagerv2.repository.UserRepository;
+import io.github.wasp_stdnt.passwordmanagerv2.security.UserIdCache;
 import io.github.wasp_stdnt.passwordmanagerv2.service.encryption.PasswordHashService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +16,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 
 import java.util.Optional;
 
@@ -25,6 +28,8 @@ class UserServiceImplTest {
 
     @Mock private UserRepository userRepository;
     @Mock private PasswordHashService passwordHashService;
+    @Mock private UserIdCache userIdCache;
+    @Mock private VaultEventBus vaultEvents;
     @InjectMocks private UserServiceImpl userService;
 
     private UserRegistrationDto registrationDto;
@@ -57,6 +62,7 @@ class UserServiceImplTest {
         ArgumentCaptor<User> captor = ArgumentCaptor.forClass(User.class);
         verify(userRepository).save(captor.capture());
         assertThat(captor.getValue().getPasswordHash()).isEqualTo("hashed");
+        verify(vaultEvents).publish(1L, 0L);
     }
 
     @Test
@@ -68,6 +74,25 @@ class UserServiceImplTest {
                 .hasMessage("Email already in use");
     }
 
+    @Test
+    void register_whenConcurrentRegistrationWins_shouldThrowConflict() {
+        when(userRepository.findByEmail(registrationDto.getEmail())).thenReturn(Optional.empty());
+        when(passwordHashService.hashPassword("password123")).thenReturn("hashed");
+        when(userRepository.save(any(User.class))).thenThrow(new DataIntegrityViolationException("duplicate email"));
+
+        assertThatThrownBy(() -> userService.register(registrationDto))
+                .isInstanceOf(ConflictException.class)
+                .hasMessage("Email already in use");
+    }
+
+    @Test
+    void register_whenEmailExists_shouldNotHash() {
+        when(userRepository.findByEmail(registrationDto.getEmail())).thenReturn(Optional.of(new User()));
+
+        assertThatThrownBy(() -> userService.register(registrationDto)).isInstanceOf(ConflictException.class);
+        verifyNoInteractions(passwordHashService);
+    }
+
     @Test
     void getById_whenUserExists_shouldReturnUser() {
         User user = new User();
@@ -96,6 +121,7 @@ class UserServiceImplTest {
         when(userRepository.existsById(4L)).thenReturn(true);
         userService.deleteUser(4L);
         verify(userRepository).deleteById(4L);
+        verify(userIdCache).evictUserId(4L);
     }
 
     @Test